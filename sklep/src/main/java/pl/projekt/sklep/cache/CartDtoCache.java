@@ -0,0 +1,67 @@
+package pl.projekt.sklep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.dto.CartDto;
+import pl.projekt.sklep.dto.CartItemDto;
+import pl.projekt.sklep.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Mapped carts keyed by cart id and tagged with the cart's {@code @Version}
+ * and the {@link ItemVersions} stamps of the items in it. A cart change or a
+ * change to one of its items makes the entry stale without an explicit
+ * invalidation; the next read replaces it. Changes to other items leave it
+ * alone. Cached DTOs are shared and must not be modified.
+ */
+@Component
+public class CartDtoCache {
+    private final Cache<Long, Entry> cache;
+    private final ItemVersions itemVersions;
+
+    public CartDtoCache(MeterRegistry meterRegistry, ItemVersions itemVersions,
+                        @Value("${shop.cache.cart-dto.max-size:10000}") long maxSize,
+                        @Value("${shop.cache.cart-dto.ttl:10m}") Duration ttl) {
+        this.itemVersions = itemVersions;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cartDto");
+    }
+
+    public CartDto get(Long cartId, Long version) {
+        Entry entry = cache.getIfPresent(cartId);
+        return entry != null && entry.matches(version) && itemVersions.isCurrent(entry.items()) ? entry.cart() : null;
+    }
+
+    /**
+     * Caches a cart mapped after {@code changes} was read from
+     * {@link ItemVersions#changes()}. When some item changed in the meantime
+     * the cart may hold its old data, so it is not cached.
+     */
+    public void put(Long cartId, Long version, long changes, CartDto cart) {
+        ItemVersions.Stamp items = itemVersions.stamp(cart.getItems().stream()
+                .map(CartItemDto::getItem)
+                .filter(Objects::nonNull)
+                .map(ItemDto::getItemId)
+                .filter(Objects::nonNull)
+                .toList());
+        if (itemVersions.changes() == changes) {
+            cache.put(cartId, new Entry(version, items, cart));
+        }
+    }
+
+    private record Entry(Long version, ItemVersions.Stamp items, CartDto cart) {
+        boolean matches(Long version) {
+            return this.version != null && this.version.equals(version);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.projekt.sklep.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the catalog used to derive ETag and Last-Modified
+ * headers. Inside a transaction the bump is deferred until after commit, so
+ * a new version is never handed out together with not yet committed data.
+ * <p>
+ * The facet version follows every change except stock movements that leave
+ * each item in or out of stock as it was, so checkouts do not throw away
+ * cached facet counts.
+ */
+@Component
+public class CatalogVersion {
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong facetVersion = new AtomicLong();
+    // whole seconds, strictly increasing, because HTTP dates have no sub-second precision
+    private final AtomicLong lastModified = new AtomicLong(epoch / 1000 * 1000);
+
+    public void bump() {
+        AfterCommit.run(() -> increment(true));
+    }
+
+    // stock levels moved; the facets only change when some item went in or out of stock
+    public void bumpStock(boolean availabilityChanged) {
+        AfterCommit.run(() -> increment(availabilityChanged));
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public long facetVersion() {
+        return facetVersion.get();
+    }
+
+    public String etag() {
+        return "\"" + Long.toString(epoch, 36) + "-" + version.get() + "\"";
+    }
+
+    public long lastModified() {
+        return lastModified.get();
+    }
+
+    private void increment(boolean facets) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        lastModified.updateAndGet(previous -> Math.max(now, previous + 1000));
+        if (facets) {
+            facetVersion.incrementAndGet();
+        }
+        version.incrementAndGet();
+    }
+}
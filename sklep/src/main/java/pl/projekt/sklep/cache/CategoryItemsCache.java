@@ -0,0 +1,57 @@
+package pl.projekt.sklep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.model.Item;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Mapped item lists per category name. The cache is bounded by the total
+ * number of cached items rather than by the number of categories.
+ * Invalidations wait for the surrounding transaction to commit, otherwise a
+ * concurrent reader could cache the old list again for the whole TTL.
+ */
+@Component
+public class CategoryItemsCache {
+    private final Cache<String, List<ItemDto>> cache;
+
+    public CategoryItemsCache(MeterRegistry meterRegistry,
+                              @Value("${shop.cache.category-items.max-items:100000}") long maxItems,
+                              @Value("${shop.cache.category-items.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxItems)
+                .<String, List<ItemDto>>weigher((category, items) -> Math.max(items.size(), 1))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "itemsByCategory");
+    }
+
+    // a null or empty list returned by the loader is not cached
+    public List<ItemDto> get(String category, Function<String, List<ItemDto>> loader) {
+        return cache.get(category, key -> {
+            List<ItemDto> items = loader.apply(key);
+            return items == null || items.isEmpty() ? null : List.copyOf(items);
+        });
+    }
+
+    public void invalidate(String category) {
+        if (category != null) {
+            AfterCommit.run(() -> cache.invalidate(category));
+        }
+    }
+
+    public void invalidate(Item item) {
+        if (item.getCategory() != null) {
+            invalidate(item.getCategory().getName());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package pl.projekt.sklep.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.mapper.ItemMapper;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.search.ItemSearchIndex;
+import pl.projekt.sklep.snapshot.CatalogSnapshot;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pushes a written item to every in-memory read path: the name and category
+ * caches, the item change stamps, the search index and the catalog snapshot.
+ * Each of them applies the change after the surrounding transaction commits,
+ * so a rollback leaves them untouched. The catalog version is bumped
+ * separately by the caller, once per transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemChangePublisher {
+    private final ItemNameCache itemNameCache;
+    private final CategoryItemsCache categoryItemsCache;
+    private final ItemVersions itemVersions;
+    private final ItemSearchIndex itemSearchIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ItemMapper itemMapper;
+
+    public void changed(Item item) {
+        changed(itemMapper.toDto(item));
+    }
+
+    public void changed(ItemDto item) {
+        itemNameCache.invalidate(item.getName());
+        categoryItemsCache.invalidate(categoryName(item));
+        itemVersions.bump(item.getItemId());
+        itemSearchIndex.index(item);
+        catalogSnapshot.upsert(item);
+    }
+
+    // one invalidation per touched category rather than per item
+    public void changed(Collection<ItemDto> items) {
+        Set<String> categories = new HashSet<>();
+        for (ItemDto item : items) {
+            itemNameCache.invalidate(item.getName());
+            itemVersions.bump(item.getItemId());
+            itemSearchIndex.index(item);
+            catalogSnapshot.upsert(item);
+            categories.add(categoryName(item));
+        }
+        categories.forEach(categoryItemsCache::invalidate);
+    }
+
+    public void removed(Item item) {
+        itemNameCache.invalidate(item.getName());
+        categoryItemsCache.invalidate(item);
+        itemVersions.bump(item.getItemId());
+        itemSearchIndex.remove(item.getItemId());
+        catalogSnapshot.remove(item.getItemId());
+    }
+
+    private static String categoryName(ItemDto item) {
+        return item.getCategory() == null ? null : item.getCategory().getName();
+    }
+}
@@ -0,0 +1,46 @@
+package pl.projekt.sklep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Facet results keyed by filter and the catalog facet version. A catalog write
+ * moves the version on, so stale entries are never read again and simply age
+ * out. Checkouts that sell nothing out keep the version, and the cache warm.
+ */
+@Component
+public class ItemFacetsCache {
+    private final Cache<FacetKey, ItemFacetsDto> cache;
+    private final CatalogVersion catalogVersion;
+
+    public ItemFacetsCache(MeterRegistry meterRegistry, CatalogVersion catalogVersion,
+                           @Value("${shop.cache.item-facets.max-size:1000}") long maxSize,
+                           @Value("${shop.cache.item-facets.ttl:10m}") Duration ttl) {
+        this.catalogVersion = catalogVersion;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "itemFacets");
+    }
+
+    public ItemFacetsDto get(String category, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal bucketWidth,
+                             Supplier<ItemFacetsDto> loader) {
+        FacetKey key = new FacetKey(catalogVersion.facetVersion(), category, minPrice, maxPrice, bucketWidth);
+        return cache.get(key, ignored -> loader.get());
+    }
+
+    private record FacetKey(long version, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                            BigDecimal bucketWidth) {
+    }
+}
@@ -0,0 +1,62 @@
+package pl.projekt.sklep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.model.Category;
+import pl.projekt.sklep.model.Item;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Name to item lookup cache in front of {@code ItemRepository.findByName}.
+ * Values are detached copies and must be treated as read-only; callers that
+ * need to modify an item load the managed entity by id. Invalidations wait
+ * for the surrounding transaction to commit, so a concurrent reader cannot
+ * cache the old row again in between.
+ */
+@Component
+public class ItemNameCache {
+    private final Cache<String, Item> cache;
+
+    public ItemNameCache(MeterRegistry meterRegistry,
+                         @Value("${shop.cache.item-name.max-size:10000}") long maxSize,
+                         @Value("${shop.cache.item-name.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "itemByName");
+    }
+
+    // a null returned by the loader is not cached
+    public Item get(String name, Function<String, Item> loader) {
+        return cache.get(name, key -> {
+            Item item = loader.apply(key);
+            return item == null ? null : detachedCopy(item);
+        });
+    }
+
+    public void invalidate(String name) {
+        if (name != null) {
+            AfterCommit.run(() -> cache.invalidate(name));
+        }
+    }
+
+    public void invalidateAll() {
+        AfterCommit.run(cache::invalidateAll);
+    }
+
+    // the copy drops Category.items so hashCode/equals never touch a lazy collection outside a session
+    private static Item detachedCopy(Item item) {
+        Category category = item.getCategory() == null ? null
+                : new Category(item.getCategory().getId(), item.getCategory().getName(), null);
+        return new Item(item.getItemId(), item.getName(), item.getPrice(), item.getInventory(),
+                item.getDescription(), category);
+    }
+}
@@ -0,0 +1,73 @@
+package pl.projekt.sklep.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Change stamps for single items, so a cached value built from a few items
+ * goes stale only when one of those items changes. Stamps are striped by item
+ * id to keep the table a fixed size whatever the catalog size; two items that
+ * share a stripe only cost each other a cache miss. Like {@link CatalogVersion}
+ * the stamps move after the surrounding transaction commits.
+ */
+@Component
+public class ItemVersions {
+    private static final int STRIPES = 4096;
+
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    // every item change and every bumpAll, for readers that need to know nothing moved in between
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    public void bump(Long itemId) {
+        if (itemId != null) {
+            AfterCommit.run(() -> {
+                stamps.incrementAndGet(stripe(itemId));
+                changes.incrementAndGet();
+            });
+        }
+    }
+
+    // for changes that reach every item at once, e.g. a renamed category
+    public void bumpAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            changes.incrementAndGet();
+        });
+    }
+
+    public long changes() {
+        return changes.get();
+    }
+
+    public Stamp stamp(Collection<Long> itemIds) {
+        int[] stripes = itemIds.stream().mapToInt(ItemVersions::stripe).distinct().toArray();
+        long[] values = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            values[i] = stamps.get(stripes[i]);
+        }
+        return new Stamp(generation.get(), stripes, values);
+    }
+
+    public boolean isCurrent(Stamp stamp) {
+        if (stamp.generation() != generation.get()) {
+            return false;
+        }
+        for (int i = 0; i < stamp.stripes().length; i++) {
+            if (stamps.get(stamp.stripes()[i]) != stamp.values()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int stripe(Long itemId) {
+        return (int) (itemId ^ itemId >>> 32) & (STRIPES - 1);
+    }
+
+    public record Stamp(long generation, int[] stripes, long[] values) {
+    }
+}
@@ -0,0 +1,112 @@
+package pl.projekt.sklep.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.projekt.sklep.repository.CartRepository;
+import pl.projekt.sklep.service.CartServiceInterface;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purges carts nobody has changed for {@code shop.cart.expiry.ttl}. Each
+ * sweep walks the {@code last_touched} index from the oldest cart and
+ * clears expired carts through {@link CartServiceInterface#clearCarts},
+ * one short transaction per chunk.
+ */
+@Slf4j
+@Component
+public class CartExpirySweeper {
+    private final CartRepository cartRepository;
+    private final CartServiceInterface cartService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int chunkSize;
+    private final Counter purged;
+    private final Timer sweeps;
+    private final ScheduledExecutorService sweeper;
+
+    public CartExpirySweeper(CartRepository cartRepository, CartServiceInterface cartService,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                             @Value("${shop.cart.expiry.enabled:true}") boolean enabled,
+                             @Value("${shop.cart.expiry.ttl:7d}") Duration ttl,
+                             @Value("${shop.cart.expiry.sweep-interval:5m}") Duration sweepInterval,
+                             @Value("${shop.cart.expiry.chunk-size:500}") int chunkSize) {
+        this.cartRepository = cartRepository;
+        this.cartService = cartService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.purged = Counter.builder("shop.cart.expiry.purged").register(meterRegistry);
+        this.sweeps = Timer.builder("shop.cart.expiry.sweep").register(meterRegistry);
+        if (enabled) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepSafely, sweepInterval.toMillis(), sweepInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Deletes every cart that expired before now and returns how many went.
+     */
+    public int sweep() {
+        Instant cutoff = Instant.now().minus(ttl);
+        return sweeps.record(() -> {
+            int total = 0;
+            int deleted;
+            do {
+                deleted = purgeChunk(cutoff);
+                total += deleted;
+            } while (deleted == chunkSize);
+            return total;
+        });
+    }
+
+    private int purgeChunk(Instant cutoff) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Long> cartIds = cartRepository.lockExpiredIds(cutoff, PageRequest.of(0, chunkSize));
+            if (cartIds.isEmpty()) {
+                return 0;
+            }
+            return cartService.clearCarts(cartIds);
+        });
+        purged.increment(deleted);
+        return deleted;
+    }
+
+    private void sweepSafely() {
+        try {
+            int deleted = sweep();
+            if (deleted > 0) {
+                log.info("Purged {} abandoned carts", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cart expiry sweep failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package pl.projekt.sklep.cart;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import pl.projekt.sklep.model.Cart;
+import pl.projekt.sklep.model.CartItem;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of cart states for the in-memory cart store
+ * ({@code shop.cart.journal.enabled=true}). Every change appends the full
+ * resulting cart (or a delete) to a memory-mapped segment of fixed size; a
+ * full segment rolls over to the next file. A periodic snapshot folds all
+ * closed segments into one file holding the latest state per cart and
+ * deletes them, so replay on boot reads one snapshot plus a few segments.
+ * <p>
+ * Record layout: {@code int length, int crc32, byte type, long cartId, payload}.
+ * A zero length marks the end of a segment; a bad checksum is treated the
+ * same, which drops a record torn by a crash.
+ */
+@Slf4j
+@Component
+public class CartJournal {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER = 8;
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{20})\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{20})\\.snap");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnWrite;
+    private final Duration snapshotInterval;
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private long snapshotIndex;
+    private boolean appendedSinceSnapshot;
+    private ScheduledExecutorService snapshotter;
+
+    public CartJournal(@Value("${shop.cart.store:database}") String store,
+                       @Value("${shop.cart.journal.enabled:false}") boolean journalEnabled,
+                       @Value("${shop.cart.journal.dir:data/cart-journal}") Path directory,
+                       @Value("${shop.cart.journal.segment-size:64MB}") DataSize segmentSize,
+                       @Value("${shop.cart.journal.force-on-write:false}") boolean forceOnWrite,
+                       @Value("${shop.cart.journal.snapshot-interval:5m}") Duration snapshotInterval) {
+        // the journal records what the in-memory store holds, on its own it has nothing to write
+        this.enabled = journalEnabled && "memory".equalsIgnoreCase(store);
+        if (journalEnabled && !enabled) {
+            log.warn("shop.cart.journal.enabled needs shop.cart.store=memory, journal stays off");
+        }
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.forceOnWrite = forceOnWrite;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays the latest snapshot and the segments written after it, then
+     * opens a fresh segment for appends. Returns the last state of every cart
+     * that was not deleted.
+     */
+    public Collection<Cart> recover() {
+        try {
+            Files.createDirectories(directory);
+            snapshotIndex = latest(SNAPSHOT).orElse(0L);
+            Map<Long, byte[]> state = fold(snapshotIndex);
+            segmentIndex = latest(SEGMENT).orElse(snapshotIndex);
+            openSegment(segmentIndex + 1);
+            // segments left from the previous run get folded by the first snapshot
+            appendedSinceSnapshot = segmentIndex - 1 > snapshotIndex;
+            snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-journal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(),
+                    snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+            List<Cart> carts = new ArrayList<>(state.size());
+            state.values().forEach(payload -> carts.add(decode(ByteBuffer.wrap(payload))));
+            log.info("Recovered {} carts from the cart journal in {}", carts.size(), directory);
+            return carts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the cart journal from " + directory, e);
+        }
+    }
+
+    public void append(Cart cart) {
+        write(encode(cart));
+    }
+
+    public void appendDelete(Long cartId) {
+        write(ByteBuffer.allocate(9).put(DELETE).putLong(cartId).array());
+    }
+
+    /**
+     * Folds every closed segment into a new snapshot and removes the files it replaces.
+     */
+    public void snapshot() throws IOException {
+        long upTo;
+        appendLock.lock();
+        try {
+            if (!appendedSinceSnapshot) {
+                return;
+            }
+            openSegment(segmentIndex + 1);
+            upTo = segmentIndex - 1;
+            appendedSinceSnapshot = false;
+        } finally {
+            appendLock.unlock();
+        }
+        Map<Long, byte[]> state = fold(snapshotIndex, upTo);
+        Path temporary = directory.resolve(String.format("snapshot-%020d.snap.tmp", upTo));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (byte[] payload : state.values()) {
+                ByteBuffer record = ByteBuffer.allocate(HEADER + payload.length);
+                record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(String.format("snapshot-%020d.snap", upTo)),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        long previous = snapshotIndex;
+        snapshotIndex = upTo;
+        Files.deleteIfExists(directory.resolve(String.format("snapshot-%020d.snap", previous)));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) <= upTo) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (snapshotter == null) {
+            return;
+        }
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        appendLock.lock();
+        try {
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Cart journal snapshot failed", e);
+        }
+    }
+
+    private void write(byte[] payload) {
+        if (!enabled) {
+            return;
+        }
+        if (HEADER + payload.length + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Cart record of " + payload.length + " bytes does not fit in a journal segment");
+        }
+        int crc = checksum(payload);
+        appendLock.lock();
+        try {
+            // keep room for the zero length that ends the segment
+            if (segment.remaining() < HEADER + payload.length + Integer.BYTES) {
+                openSegment(segmentIndex + 1);
+            }
+            int start = segment.position();
+            segment.putInt(payload.length).putInt(crc).put(payload);
+            if (forceOnWrite) {
+                segment.force(start, HEADER + payload.length);
+            }
+            appendedSinceSnapshot = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll the cart journal segment", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void openSegment(long index) throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        Path file = directory.resolve(String.format("segment-%020d.log", index));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segmentIndex = index;
+    }
+
+    private Map<Long, byte[]> fold(long fromSnapshot) throws IOException {
+        return fold(fromSnapshot, Long.MAX_VALUE);
+    }
+
+    // latest payload per cart: the snapshot first, then every segment after it up to the given index
+    private Map<Long, byte[]> fold(long fromSnapshot, long upToSegment) throws IOException {
+        Map<Long, byte[]> state = new HashMap<>();
+        Path snapshotFile = directory.resolve(String.format("snapshot-%020d.snap", fromSnapshot));
+        if (Files.exists(snapshotFile)) {
+            replay(snapshotFile, state);
+        }
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    long index = Long.parseLong(matcher.group(1));
+                    if (index > fromSnapshot && index <= upToSegment) {
+                        segments.add(index);
+                    }
+                }
+            });
+        }
+        Collections.sort(segments);
+        for (long index : segments) {
+            replay(directory.resolve(String.format("segment-%020d.log", index)), state);
+        }
+        return state;
+    }
+
+    private void replay(Path file, Map<Long, byte[]> state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER) {
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                if (checksum(payload) != crc) {
+                    log.warn("Torn record in {}, ignoring the rest of the file", file.getFileName());
+                    break;
+                }
+                long cartId = ByteBuffer.wrap(payload, 1, Long.BYTES).getLong();
+                if (payload[0] == PUT) {
+                    state.put(cartId, payload);
+                } else {
+                    state.remove(cartId);
+                }
+            }
+        }
+    }
+
+    private Optional<Long> latest(Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .max(Long::compare);
+        }
+    }
+
+    private static byte[] encode(Cart cart) {
+        List<CartItem> lines = List.copyOf(cart.getItems().values());
+        // amounts keep the decimal record layout, so segments written before Money still decode
+        BigDecimal totalAmount = Money.toBigDecimal(cart.getTotalAmount());
+        byte[] total = unscaled(totalAmount);
+        int size = 1 + Long.BYTES + Integer.BYTES * 2 + total.length + Integer.BYTES;
+        List<BigDecimal> prices = new ArrayList<>(lines.size());
+        List<byte[]> unscaledPrices = new ArrayList<>(lines.size());
+        for (CartItem line : lines) {
+            BigDecimal price = Money.toBigDecimal(line.getPrice());
+            prices.add(price);
+            unscaledPrices.add(unscaled(price));
+            size += Long.BYTES + Integer.BYTES * 3 + unscaledPrices.get(unscaledPrices.size() - 1).length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(PUT).putLong(cart.getCartId());
+        putDecimal(buffer, totalAmount, total);
+        buffer.putInt(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            CartItem line = lines.get(i);
+            buffer.putLong(line.getItemId()).putInt(line.getQuantity());
+            putDecimal(buffer, prices.get(i), unscaledPrices.get(i));
+        }
+        return buffer.array();
+    }
+
+    private static Cart decode(ByteBuffer buffer) {
+        buffer.get();
+        Cart cart = new Cart();
+        cart.setCartId(buffer.getLong());
+        cart.setTotalAmount(Money.ofNullable(getDecimal(buffer)));
+        int lines = buffer.getInt();
+        for (int i = 0; i < lines; i++) {
+            Item item = new Item();
+            item.setItemId(buffer.getLong());
+            CartItem line = new CartItem();
+            line.setItem(item);
+            line.setQuantity(buffer.getInt());
+            line.setPrice(Money.ofNullable(getDecimal(buffer)));
+            if (line.getPrice() != null) {
+                line.setTotalPrice();
+            }
+            line.setCart(cart);
+            cart.getItems().put(item.getItemId(), line);
+        }
+        return cart;
+    }
+
+    private static byte[] unscaled(BigDecimal value) {
+        return value == null ? new byte[0] : value.unscaledValue().toByteArray();
+    }
+
+    // scale, byte length (-1 for null), two's complement unscaled value
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value, byte[] unscaled) {
+        buffer.putInt(value == null ? 0 : value.scale());
+        buffer.putInt(value == null ? -1 : unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,16 @@
+package pl.projekt.sklep.cart;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a cart operation whose first argument is the cart id. With
+ * {@code shop.cart.execution=partitioned} the call runs on the single
+ * partition thread owning that cart, see {@link CartPartitions}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CartPartitioned {
+}
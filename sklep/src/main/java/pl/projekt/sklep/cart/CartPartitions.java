@@ -0,0 +1,123 @@
+package pl.projekt.sklep.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.*;
+
+/**
+ * Optional single-writer execution for carts ({@code shop.cart.execution=partitioned}).
+ * Every {@link CartPartitioned} call is handed to one of N single-threaded
+ * partitions chosen by the cart id and the caller waits for its result, so
+ * operations on one cart run one after another in process while different
+ * carts proceed in parallel. Each partition has a bounded queue; when it is
+ * full the call is refused with 429 instead of piling up threads.
+ * <p>
+ * Calls made inside a transaction or from a partition thread run in place,
+ * they already belong to an operation that owns the cart.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CartPartitions {
+    private final ThreadPoolExecutor[] partitions;
+    private final Counter rejected;
+
+    public CartPartitions(MeterRegistry meterRegistry,
+                          @Value("${shop.cart.execution:direct}") String execution,
+                          @Value("${shop.cart.partitions.count:0}") int count,
+                          @Value("${shop.cart.partitions.queue-capacity:1000}") int queueCapacity) {
+        this.rejected = Counter.builder("shop.cart.partition.rejected").register(meterRegistry);
+        if (!"partitioned".equalsIgnoreCase(execution)) {
+            partitions = null;
+            return;
+        }
+        int size = count > 0 ? count : Runtime.getRuntime().availableProcessors();
+        partitions = new ThreadPoolExecutor[size];
+        for (int i = 0; i < size; i++) {
+            String name = "cart-partition-" + i;
+            ThreadPoolExecutor partition = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new PartitionThread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            partitions[i] = partition;
+            Gauge.builder("shop.cart.partition.queue", partition, executor -> executor.getQueue().size())
+                    .tag("partition", Integer.toString(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return partitions != null;
+    }
+
+    @Around("@annotation(pl.projekt.sklep.cart.CartPartitioned)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        if (partitions == null
+                || args.length == 0 || !(args[0] instanceof Long cartId)
+                || Thread.currentThread() instanceof PartitionThread
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        Future<Object> result;
+        try {
+            result = partitions[Math.floorMod(Long.hashCode(cartId), partitions.length)].submit(() -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Cart is busy, please retry", e);
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    // queued operations still run, their callers are waiting for them
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (partitions == null) {
+            return;
+        }
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class PartitionThread extends Thread {
+        PartitionThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package pl.projekt.sklep.cart;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.projekt.sklep.cache.AfterCommit;
+import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.model.Cart;
+import pl.projekt.sklep.model.CartItem;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
+import pl.projekt.sklep.repository.CartRepository;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind tier for carts ({@code shop.cart.store=memory}).
+ * Live carts are held as detached {@link Cart} copies; a mutation works on a
+ * fresh copy and swaps it in, so readers never lock and a failed change
+ * leaves the published cart untouched. Dirty carts are written back to the
+ * database in batches by a background thread, idle clean carts are dropped
+ * once the store grows past its limit, and everything dirty is flushed on
+ * shutdown.
+ */
+@Slf4j
+@Component
+public class CartStore implements SmartInitializingSingleton {
+    private final CartRepository cartRepository;
+    private final ItemRepository itemRepository;
+    private final CartJournal cartJournal;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxCarts;
+    private final long idleMillis;
+    private final int flushBatchSize;
+
+    private final Map<Long, LiveCart> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    public CartStore(CartRepository cartRepository, ItemRepository itemRepository, CartJournal cartJournal,
+                     JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                     PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                     @Value("${shop.cart.store:database}") String store,
+                     @Value("${shop.cart.memory.max-carts:100000}") int maxCarts,
+                     @Value("${shop.cart.memory.idle-ttl:30m}") Duration idleTtl,
+                     @Value("${shop.cart.memory.flush-interval:1s}") Duration flushInterval,
+                     @Value("${shop.cart.memory.flush-batch-size:100}") int flushBatchSize) {
+        this.cartRepository = cartRepository;
+        this.itemRepository = itemRepository;
+        this.cartJournal = cartJournal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = "memory".equalsIgnoreCase(store);
+        this.maxCarts = maxCarts;
+        this.idleMillis = idleTtl.toMillis();
+        this.flushBatchSize = flushBatchSize;
+        if (enabled) {
+            meterRegistry.gaugeMapSize("shop.cart.store.live", List.of(), carts);
+            meterRegistry.gaugeCollectionSize("shop.cart.store.dirty", List.of(), dirty);
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushAndEvict, flushInterval.toMillis(), flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // runs before the web server starts, so no request sees a cart the journal has not restored yet
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (cartJournal.isEnabled()) {
+            restore(cartJournal.recover());
+        }
+    }
+
+    // a cart that was just inserted, so the first read does not go back to the database
+    public void register(Cart cart) {
+        if (enabled) {
+            Cart copy = copy(cart);
+            cartJournal.append(copy);
+            carts.putIfAbsent(cart.getCartId(), new LiveCart(copy));
+        }
+    }
+
+    public <T> T read(Long cartId, Function<Cart, T> reader) {
+        LiveCart live = load(cartId);
+        live.touch();
+        return reader.apply(live.cart);
+    }
+
+    public Cart update(Long cartId, Consumer<Cart> change) {
+        while (true) {
+            LiveCart live = load(cartId);
+            synchronized (live) {
+                if (live.retired) {
+                    continue;
+                }
+                Cart working = copy(live.cart);
+                change.accept(working);
+                // written ahead of publishing, a failed append leaves the cart unchanged
+                cartJournal.append(working);
+                live.cart = working;
+                live.changes++;
+                live.touch();
+                dirty.add(cartId);
+                return working;
+            }
+        }
+    }
+
+    /**
+     * Writes the cart back right away; joins the caller's transaction, e.g. the checkout.
+     * Inside a transaction the cart stays claimed until it completes, so the
+     * background flusher does not write the same row under the checkout.
+     * Fails with an optimistic lock error when the row changed behind the store.
+     */
+    public void flush(Long cartId) {
+        LiveCart live = enabled ? carts.get(cartId) : null;
+        if (live == null) {
+            return;
+        }
+        if (live.writing.isHeldByCurrentThread()) {
+            writeDirty(live);
+            return;
+        }
+        live.writing.lock();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    live.writing.unlock();
+                }
+            });
+            writeDirty(live);
+        } else {
+            try {
+                writeDirty(live);
+            } finally {
+                live.writing.unlock();
+            }
+        }
+    }
+
+    private void writeDirty(LiveCart live) {
+        if (live.isDirty() && !write(List.of(live)).isEmpty()) {
+            throw new ObjectOptimisticLockingFailureException(Cart.class, live.cart.getCartId());
+        }
+    }
+
+    // the live cart goes only once the delete commits, a checkout that rolls back keeps the latest changes
+    public void discard(Long cartId) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            LiveCart live = carts.remove(cartId);
+            if (live != null) {
+                synchronized (live) {
+                    live.retired = true;
+                }
+            }
+            dirty.remove(cartId);
+            cartJournal.appendDelete(cartId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flushDirty();
+    }
+
+    private LiveCart load(Long cartId) {
+        if (!enabled) {
+            throw new IllegalStateException("In-memory cart store is disabled");
+        }
+        LiveCart live = carts.get(cartId);
+        if (live != null) {
+            return live;
+        }
+        Cart cart = transactionTemplate.execute(status -> cartRepository.findById(cartId).map(CartStore::copy).orElse(null));
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        LiveCart loaded = new LiveCart(cart);
+        LiveCart raced = carts.putIfAbsent(cartId, loaded);
+        return raced == null ? loaded : raced;
+    }
+
+    /**
+     * Writes carts recovered from the journal into the database, dropping
+     * lines whose item no longer exists, and moves the cart id sequence past them.
+     */
+    private void restore(Collection<Cart> recovered) {
+        if (recovered.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> itemIds = new HashSet<>();
+            recovered.forEach(cart -> itemIds.addAll(cart.getItems().keySet()));
+            Map<Long, Item> items = new HashMap<>();
+            itemRepository.findAllById(itemIds).forEach(item -> items.put(item.getItemId(), item));
+            long maxId = 0;
+            for (Cart cart : recovered) {
+                cart.getItems().values().removeIf(line -> !items.containsKey(line.getItemId()));
+                cart.getItems().values().forEach(line -> line.setItem(items.get(line.getItemId())));
+                cart.setTotalAmount(cart.getItems().values().stream()
+                        .map(CartItem::lineTotal)
+                        .reduce(Money.ZERO, Money::plus));
+                // the journal does not keep the touch time, a restored cart starts a fresh expiry period
+                cart.touch();
+                if (!cartRepository.existsById(cart.getCartId())) {
+                    jdbcTemplate.update("insert into cart (cart_id, version, total_amount, last_touched) values (?, 0, ?, ?)",
+                            cart.getCartId(), cart.getTotalAmount().toBigDecimal(), Timestamp.from(cart.getLastTouched()));
+                }
+                cartRepository.findById(cart.getCartId()).ifPresent(managed -> copyLines(cart, managed));
+                maxId = Math.max(maxId, cart.getCartId());
+            }
+            // Hibernate's pooled optimizer reads a sequence value as the top of a block and hands out the
+            // allocation size of ids up to it, so the next block has to start above the restored carts
+            IdSequence sequence = cartIdSequence();
+            Long next = jdbcTemplate.queryForObject(sequence.nextValueQuery(), Long.class);
+            if (next != null && next - sequence.allocationSize() < maxId) {
+                jdbcTemplate.execute("alter sequence " + sequence.name() + " restart with " + (maxId + sequence.allocationSize()));
+            }
+        });
+        log.info("Restored {} carts from the journal", recovered.size());
+    }
+
+    // taken from Cart's id mapping, so the restore follows whatever sequence and block size the generator uses
+    private IdSequence cartIdSequence() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (!(sessionFactory.getMappingMetamodel().getEntityDescriptor(Cart.class).getGenerator()
+                instanceof SequenceStyleGenerator generator) || !generator.getDatabaseStructure().isPhysicalSequence()) {
+            throw new IllegalStateException("Restoring carts needs Cart ids generated from a database sequence");
+        }
+        DatabaseStructure structure = generator.getDatabaseStructure();
+        String name = structure.getPhysicalName().render();
+        return new IdSequence(name, structure.getIncrementSize(),
+                sessionFactory.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(name));
+    }
+
+    private void flushAndEvict() {
+        try {
+            flushDirty();
+            evictIdle();
+        } catch (RuntimeException e) {
+            log.error("Cart flush failed", e);
+        }
+    }
+
+    // carts claimed by a checkout are skipped, the checkout writes them itself
+    private void flushDirty() {
+        List<LiveCart> batch = new ArrayList<>(flushBatchSize);
+        for (Long cartId : dirty) {
+            LiveCart live = carts.get(cartId);
+            if (live == null) {
+                dirty.remove(cartId);
+                continue;
+            }
+            if (!live.writing.tryLock()) {
+                continue;
+            }
+            batch.add(live);
+            if (batch.size() == flushBatchSize) {
+                writeLocked(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeLocked(batch);
+        }
+    }
+
+    private void writeLocked(List<LiveCart> batch) {
+        try {
+            writeBatch(batch);
+        } finally {
+            batch.forEach(live -> live.writing.unlock());
+        }
+    }
+
+    // a failed batch is retried cart by cart so one conflict does not hold back the rest
+    private void writeBatch(List<LiveCart> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.warn("Could not flush cart {}, will retry", batch.get(0).cart.getCartId(), e);
+                return;
+            }
+            batch.forEach(live -> writeBatch(List.of(live)));
+        }
+    }
+
+    /**
+     * Copies the batch onto the database rows and hands the generated line ids
+     * and the new row versions back to the live carts once the write commits.
+     * A row whose version moved since the cart was loaded was written by someone
+     * else; that cart is dropped rather than overwritten and its id returned.
+     */
+    private Set<Long> write(List<LiveCart> batch) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Cart> sources = new HashMap<>();
+            Map<Long, Long> changes = new HashMap<>();
+            for (LiveCart live : batch) {
+                synchronized (live) {
+                    sources.put(live.cart.getCartId(), live.cart);
+                    changes.put(live.cart.getCartId(), live.changes);
+                }
+            }
+            // carts deleted in the meantime (checkout, clear) are simply not found
+            List<Cart> written = new ArrayList<>();
+            Set<Long> conflicts = new HashSet<>();
+            for (Cart managed : cartRepository.findAllById(sources.keySet())) {
+                Cart source = sources.get(managed.getCartId());
+                if (Objects.equals(source.getVersion(), managed.getVersion())) {
+                    copyLines(source, managed);
+                    written.add(managed);
+                } else {
+                    log.warn("Cart {} changed in the database behind the cart store, dropping its unsaved changes",
+                            managed.getCartId());
+                    // a later recovery must not bring the dropped state back
+                    cartJournal.append(copy(managed));
+                    conflicts.add(managed.getCartId());
+                }
+            }
+            // inserts the new lines and bumps the versions, so both can be read back
+            cartRepository.flush();
+            Map<Long, Stored> stored = new HashMap<>();
+            written.forEach(managed -> stored.put(managed.getCartId(), Stored.of(managed)));
+            batch.stream().filter(live -> conflicts.contains(live.cart.getCartId())).forEach(this::drop);
+            AfterCommit.run(() -> batch.forEach(live -> {
+                Long cartId = live.cart.getCartId();
+                markFlushed(live, changes.get(cartId), stored.get(cartId));
+            }));
+            return conflicts;
+        });
+    }
+
+    private void copyLines(Cart source, Cart managed) {
+        Map<Long, CartItem> lines = managed.getItems();
+        List<Long> removed = lines.keySet().stream().filter(itemId -> !source.getItems().containsKey(itemId)).toList();
+        removed.forEach(lines::remove);
+        for (CartItem line : source.getItems().values()) {
+            CartItem target = lines.get(line.getItemId());
+            if (target == null) {
+                target = new CartItem();
+                target.setItem(itemRepository.getReferenceById(line.getItemId()));
+                target.setCart(managed);
+                lines.put(line.getItemId(), target);
+            }
+            target.setQuantity(line.getQuantity());
+            target.setPrice(line.getPrice());
+            target.setTotalPrice(line.getTotalPrice());
+        }
+        managed.setTotalAmount(source.getTotalAmount());
+        if (source.getLastTouched() != null) {
+            managed.setLastTouched(source.getLastTouched());
+        }
+    }
+
+    private void markFlushed(LiveCart live, long changes, Stored stored) {
+        synchronized (live) {
+            if (stored != null) {
+                live.cart = stored.applyTo(live.cart);
+            }
+            live.flushed = Math.max(live.flushed, changes);
+            if (!live.isDirty()) {
+                dirty.remove(live.cart.getCartId());
+            }
+        }
+    }
+
+    // retired first, so no update lands on the dropped copy; the next read loads the row
+    private void drop(LiveCart live) {
+        Long cartId;
+        synchronized (live) {
+            live.retired = true;
+            cartId = live.cart.getCartId();
+        }
+        dirty.remove(cartId);
+        carts.remove(cartId, live);
+    }
+
+    // dirty carts stay until flushed; beyond the limit the least recently used clean carts go first
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        int excess = carts.size() - maxCarts;
+        List<Map.Entry<Long, LiveCart>> candidates = new ArrayList<>();
+        for (Map.Entry<Long, LiveCart> entry : carts.entrySet()) {
+            if (now - entry.getValue().lastAccess > idleMillis) {
+                retire(entry.getKey(), entry.getValue());
+            } else if (excess > 0) {
+                candidates.add(entry);
+            }
+        }
+        excess = carts.size() - maxCarts;
+        if (excess > 0) {
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            for (Map.Entry<Long, LiveCart> entry : candidates) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (retire(entry.getKey(), entry.getValue())) {
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private boolean retire(Long cartId, LiveCart live) {
+        synchronized (live) {
+            if (live.isDirty() || live.retired) {
+                return false;
+            }
+            live.retired = true;
+            return carts.remove(cartId, live);
+        }
+    }
+
+    private static Cart copy(Cart source) {
+        Cart copy = new Cart();
+        copy.setCartId(source.getCartId());
+        copy.setVersion(source.getVersion());
+        copy.setTotalAmount(source.getTotalAmount());
+        copy.setLastTouched(source.getLastTouched());
+        for (CartItem line : source.getItems().values()) {
+            CartItem lineCopy = new CartItem();
+            lineCopy.setId(line.getId());
+            lineCopy.setItem(line.getItem());
+            lineCopy.setQuantity(line.getQuantity());
+            lineCopy.setPrice(line.getPrice());
+            lineCopy.setTotalPrice(line.getTotalPrice());
+            lineCopy.setCart(copy);
+            copy.getItems().put(lineCopy.getItemId(), lineCopy);
+        }
+        return copy;
+    }
+
+    private record IdSequence(String name, int allocationSize, String nextValueQuery) {
+    }
+
+    // what the database assigned on write-back: the row version and the line id per item
+    private record Stored(Long version, Map<Long, Long> lineIds) {
+        static Stored of(Cart managed) {
+            Map<Long, Long> lineIds = new HashMap<>();
+            managed.getItems().forEach((itemId, line) -> lineIds.put(itemId, line.getId()));
+            return new Stored(managed.getVersion(), lineIds);
+        }
+
+        // a fresh copy, readers may still hold the published one
+        Cart applyTo(Cart cart) {
+            Cart updated = copy(cart);
+            updated.setVersion(version);
+            updated.getItems().forEach((itemId, line) -> line.setId(lineIds.get(itemId)));
+            return updated;
+        }
+    }
+
+    private static final class LiveCart {
+        private volatile Cart cart;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private long changes;
+        private long flushed;
+        private boolean retired;
+        // held by whoever writes this cart to the database: the flusher for a batch, a checkout until it completes
+        private final ReentrantLock writing = new ReentrantLock();
+
+        private LiveCart(Cart cart) {
+            this.cart = cart;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private synchronized boolean isDirty() {
+            return changes != flushed;
+        }
+    }
+}
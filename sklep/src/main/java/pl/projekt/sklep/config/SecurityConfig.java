@@ -35,7 +35,8 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/webjars/**",
                                 "/swagger-ui.html",
-                                "/api/**").permitAll()
+                                "/api/**",
+                                "/error").permitAll()
                         .anyRequest().authenticated()
                 )
                 .csrf(csrf -> csrf
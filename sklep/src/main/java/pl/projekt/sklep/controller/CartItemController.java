@@ -2,14 +2,18 @@ package pl.projekt.sklep.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import pl.projekt.sklep.dto.AddItemToCartRequest;
+import pl.projekt.sklep.dto.CartBatchRequest;
+import pl.projekt.sklep.dto.CartDto;
 import pl.projekt.sklep.dto.UpdateCartItemQuantityDto;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.idempotency.Idempotent;
 import pl.projekt.sklep.service.CartItemServiceInterface;
 
 @RestController
@@ -22,6 +26,9 @@ public class CartItemController {
     @Operation(summary = "Add an item to a cart", description = "Adds a specified quantity of an item to a cart. Creates a new cart if cartId is not provided.")
     @ApiResponse(responseCode = "200", description = "Item successfully added to cart")
     @ApiResponse(responseCode = "404", description = "Cart or item not found")
+    @ApiResponse(responseCode = "422", description = "Idempotency key reused for a different request")
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", description = "Client key; a repeated request with the same key gets the first response back")
+    @Idempotent
     @PostMapping("/item/add")
     public String addItemToCart(@RequestBody AddItemToCartRequest request) {
         cartItemService.addItemAndInitialize(request.getCartId(), request.getItemName(), request.getQuantity());
@@ -49,4 +56,18 @@ public class CartItemController {
         cartItemService.updateItemQuantity(request.getCartId(), request.getItemName(), request.getQuantity());
         return "Updated successfully";
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Apply several cart changes at once", description = "Applies an ordered list of add, update and remove operations to one cart in a single transaction. Creates a new cart if cartId is not provided.")
+    @ApiResponse(responseCode = "200", description = "All operations applied, returns the resulting cart")
+    @ApiResponse(responseCode = "400", description = "Invalid operation, nothing was applied")
+    @ApiResponse(responseCode = "404", description = "Cart or item not found, nothing was applied")
+    @ApiResponse(responseCode = "422", description = "Idempotency key reused for a different request")
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", description = "Client key; a repeated request with the same key gets the first response back")
+    @Idempotent
+    @PostMapping("/cart/batch")
+    public CartDto applyOperations(
+            @Parameter(description = "Cart and the operations to apply", required = true)
+            @Valid @RequestBody CartBatchRequest request) throws ResourceNotFoundException {
+        return cartItemService.applyOperations(request.getCartId(), request.getOperations());
+    }
+}
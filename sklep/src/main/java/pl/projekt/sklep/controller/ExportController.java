@@ -0,0 +1,47 @@
+package pl.projekt.sklep.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.projekt.sklep.dto.DataFormat;
+import pl.projekt.sklep.service.ExportServiceInterface;
+
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Export Controller", description = "API for streaming the catalog and order history")
+@RequiredArgsConstructor
+public class ExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final ExportServiceInterface exportService;
+
+    @Operation(summary = "Export all items", description = "Streams every item as newline-delimited JSON or CSV")
+    @ApiResponse(responseCode = "200", description = "Items streamed successfully")
+    @GetMapping("/items")
+    public ResponseEntity<StreamingResponseBody> exportItems(
+            @Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") DataFormat format) {
+        return ResponseEntity.ok()
+                .contentType(format == DataFormat.CSV ? CSV : NDJSON)
+                .body(out -> exportService.exportItems(out, format));
+    }
+
+    @Operation(summary = "Export all orders", description = "Streams every order as newline-delimited JSON, or one CSV row per order line")
+    @ApiResponse(responseCode = "200", description = "Orders streamed successfully")
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") DataFormat format) {
+        return ResponseEntity.ok()
+                .contentType(format == DataFormat.CSV ? CSV : NDJSON)
+                .body(out -> exportService.exportOrders(out, format));
+    }
+}
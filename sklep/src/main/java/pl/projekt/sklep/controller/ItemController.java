@@ -10,11 +10,22 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.bind.annotation.*;
+import pl.projekt.sklep.dto.DataFormat;
 import pl.projekt.sklep.dto.ErrorResponseDto;
 import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+import pl.projekt.sklep.dto.ItemImportResultDto;
+import pl.projekt.sklep.dto.ItemPageDto;
+import pl.projekt.sklep.dto.ItemSearchResultDto;
+import pl.projekt.sklep.dto.ItemSort;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.service.ItemFacetServiceInterface;
+import pl.projekt.sklep.service.ItemImportServiceInterface;
 import pl.projekt.sklep.service.ItemServiceInterface;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -23,6 +34,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemServiceInterface itemService;
+    private final ItemImportServiceInterface itemImportService;
+    private final ItemFacetServiceInterface itemFacetService;
 
     @Operation(summary = "Add a new item", description = "Creates a new item in the store")
     @ApiResponse(responseCode = "200", description = "Item created successfully")
@@ -33,13 +46,58 @@ public class ItemController {
         return itemService.addItem(itemDto);
     }
 
-    @Operation(summary = "Get all items", description = "Retrieves a list of all items in the store")
+    @Operation(summary = "Import items in bulk", description = "Streams newline-delimited JSON items or CSV rows (header: name,price,inventory,description,category) from the request body")
+    @ApiResponse(responseCode = "200", description = "Import finished, invalid rows are reported individually")
+    @ApiResponse(responseCode = "400", description = "CSV header without a name column")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", "text/plain", "application/octet-stream"})
+    public ItemImportResultDto importItems(
+            @Parameter(description = "Format of the request body") @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            InputStream body) throws IOException {
+        return itemImportService.importItems(body, format);
+    }
+
+    @Operation(summary = "Get all items", description = "Retrieves a list of all items in the store. Disabled unless shop.catalog.unbounded-listing-enabled is set")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list of items")
+    @ApiResponse(responseCode = "404", description = "Unbounded listing is disabled")
     @GetMapping("/all")
     public List<ItemDto> getAllItems() {
         return itemService.getAllItems();
     }
 
+    @Operation(summary = "Get a page of items", description = "Retrieves items page by page using a continuation cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page of items")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping("/page")
+    public ItemPageDto getItemsPage(
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of items per page, capped by the server") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Sort order of the listing") @RequestParam(defaultValue = "ID") ItemSort sort) {
+        return itemService.getItemsPage(cursor, size, sort);
+    }
+
+    @Operation(summary = "Search items", description = "Full-text search over item names and descriptions, best matches first")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved matching items")
+    @ApiResponse(responseCode = "400", description = "Requested page is beyond the result window")
+    @GetMapping("/search")
+    public ItemSearchResultDto searchItems(
+            @Parameter(description = "Search phrase, the last word also matches as a prefix", required = true) @RequestParam String q,
+            @Parameter(description = "Zero-based page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of items per page, capped by the server") @RequestParam(required = false) Integer size) {
+        return itemService.searchItems(q, page, size);
+    }
+
+    @Operation(summary = "Get catalog facets", description = "Returns category counts, a price histogram and the in-stock count for a filter")
+    @ApiResponse(responseCode = "200", description = "Successfully computed facets")
+    @ApiResponse(responseCode = "400", description = "Invalid bucket width")
+    @GetMapping("/facets")
+    public ItemFacetsDto getFacets(
+            @Parameter(description = "Category name to filter by") @RequestParam(required = false) String category,
+            @Parameter(description = "Lowest price to include") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Highest price to include") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Width of a price histogram bucket") @RequestParam(required = false) BigDecimal bucketWidth) {
+        return itemFacetService.getFacets(category, minPrice, maxPrice, bucketWidth);
+    }
+
     @Operation(summary = "Get item by name", description = "Retrieves a single item by its name")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved item")
     @ApiResponse(responseCode = "404", description = "Item not found")
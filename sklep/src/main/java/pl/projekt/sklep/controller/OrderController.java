@@ -2,16 +2,28 @@ package pl.projekt.sklep.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import pl.projekt.sklep.dto.OrderDto;
-import pl.projekt.sklep.mapper.OrderMapper;
+import pl.projekt.sklep.dto.OrderPageDto;
+import pl.projekt.sklep.dto.OrderStatusDto;
+import pl.projekt.sklep.dto.OrderTransitionRequest;
+import pl.projekt.sklep.dto.OrderTransitionResultDto;
+import pl.projekt.sklep.idempotency.Idempotent;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.service.OrderQueueServiceInterface;
 import pl.projekt.sklep.service.OrderServiceInterface;
+import pl.projekt.sklep.service.OrderStatusServiceInterface;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 
@@ -20,11 +32,14 @@ import java.util.List;
 @Tag(name = "Order Controller", description = "API for managing orders in the store")
 public class OrderController {
     private final OrderServiceInterface orderService;
-    private final OrderMapper orderMapper;
+    private final OrderQueueServiceInterface orderQueueService;
+    private final OrderStatusServiceInterface orderStatusService;
 
-    public OrderController(OrderServiceInterface orderService, OrderMapper orderMapper) {
+    public OrderController(OrderServiceInterface orderService, OrderQueueServiceInterface orderQueueService,
+                           OrderStatusServiceInterface orderStatusService) {
         this.orderService = orderService;
-        this.orderMapper = orderMapper;
+        this.orderQueueService = orderQueueService;
+        this.orderStatusService = orderStatusService;
     }
 
     @Operation(summary = "Create a new order", description = "Places a new order based on a cart")
@@ -32,10 +47,13 @@ public class OrderController {
             @ApiResponse(responseCode = "200", description = "Order created successfully",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = HashMap.class))),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for a different cart"),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = HashMap.class)))
     })
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", description = "Client key; a repeated request with the same key gets the first response back")
+    @Idempotent
     @PostMapping("/neworder")
     public HashMap<String, Object> createOrder(
             @Parameter(description = "ID of the cart which needs to be turned into an order", required = true)
@@ -43,6 +61,31 @@ public class OrderController {
         return orderService.createOrder(cartId);
     }
 
+    @Operation(summary = "Queue a new order", description = "Validates the cart and queues it for checkout; poll the status endpoint for the outcome")
+    @ApiResponse(responseCode = "202", description = "Order queued")
+    @ApiResponse(responseCode = "400", description = "Cart is empty")
+    @ApiResponse(responseCode = "404", description = "Cart not found")
+    @ApiResponse(responseCode = "422", description = "Idempotency key reused for a different cart")
+    @ApiResponse(responseCode = "429", description = "Checkout queue is full")
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", description = "Client key; a repeated request with the same key gets the first response back")
+    @Idempotent
+    @PostMapping("/queue")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderStatusDto queueOrder(
+            @Parameter(description = "ID of the cart which needs to be turned into an order", required = true)
+            @RequestParam Long cartId) {
+        return orderQueueService.submit(cartId);
+    }
+
+    @Operation(summary = "Get order status", description = "Returns the status of an order, and the reason if it failed")
+    @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "Order not found")
+    @GetMapping("/{orderId}/status")
+    public OrderStatusDto getOrderStatus(
+            @Parameter(description = "ID of the order", required = true) @PathVariable Long orderId) {
+        return orderQueueService.getStatus(orderId);
+    }
+
     @Operation(summary = "Get order by ID", description = "Retrieves a single order by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Order retrieved successfully",
@@ -67,8 +110,31 @@ public class OrderController {
     })
     @GetMapping("/all")
     public List<OrderDto> getAllOrders() {
-        return orderService.getAllOrders().stream()
-                .map(orderMapper::toDto)
-                .toList();
+        return orderService.getAllOrders();
+    }
+
+    @Operation(summary = "Get a page of orders", description = "Retrieves orders newest first, page by page using a continuation cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page of orders")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping("/page")
+    public OrderPageDto getOrdersPage(
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of orders per page, capped by the server") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Only orders in this status") @RequestParam(required = false) OrderStatus status,
+            @Parameter(description = "Only orders placed at or after this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only orders placed before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return orderService.getOrdersPage(cursor, size, status, from, to);
+    }
+
+    @Operation(summary = "Change the status of many orders", description = "Moves the given orders, or the orders matching the filter, to a new status in one transaction and reports the outcome per order. Cancelled orders return their stock.")
+    @ApiResponse(responseCode = "200", description = "Transition applied, see the outcome per order")
+    @ApiResponse(responseCode = "400", description = "Missing target status, ids and filter mixed, no status filter, or too many orders")
+    @PostMapping("/transitions")
+    public OrderTransitionResultDto transitionOrders(
+            @Parameter(description = "Target status and the orders to move", required = true)
+            @Valid @RequestBody OrderTransitionRequest request) {
+        return orderStatusService.transition(request);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package pl.projekt.sklep.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Schema(description = "Ordered list of changes applied to one cart in a single transaction")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+
+    @Schema(description = "ID of the cart (optional, creates new cart if not provided)")
+    private Long cartId;
+
+    @Schema(description = "Changes in the order they should be applied")
+    @NotEmpty(message = "At least one operation is required")
+    private List<@Valid CartOperationDto> operations;
+}
@@ -0,0 +1,25 @@
+package pl.projekt.sklep.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Schema(description = "Single cart change inside a batch")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDto {
+
+    @Schema(description = "ADD increases the quantity, UPDATE sets it, REMOVE drops the line")
+    @NotNull(message = "Operation type is required")
+    private CartOperationType type;
+
+    @Schema(description = "Name of the item")
+    @NotNull(message = "Item name is required")
+    private String itemName;
+
+    @Schema(description = "Quantity for ADD and UPDATE, ignored for REMOVE")
+    private Integer quantity;
+}
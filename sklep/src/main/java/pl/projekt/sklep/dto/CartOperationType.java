@@ -0,0 +1,7 @@
+package pl.projekt.sklep.dto;
+
+public enum CartOperationType {
+    ADD,
+    UPDATE,
+    REMOVE
+}
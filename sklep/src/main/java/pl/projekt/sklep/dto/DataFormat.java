@@ -0,0 +1,6 @@
+package pl.projekt.sklep.dto;
+
+public enum DataFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,7 @@
+package pl.projekt.sklep.dto;
+
+import java.math.BigDecimal;
+
+public record ItemExportRow(Long itemId, String name, BigDecimal price, int inventory, String description,
+                            Long categoryId, String categoryName) {
+}
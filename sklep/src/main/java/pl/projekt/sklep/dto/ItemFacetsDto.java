@@ -0,0 +1,17 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFacetsDto {
+    private long total;
+    private long inStock;
+    private List<FacetCountDto> categories;
+    private List<PriceBucketDto> priceHistogram;
+}
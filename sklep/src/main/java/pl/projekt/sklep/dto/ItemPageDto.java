@@ -0,0 +1,16 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPageDto {
+    private List<ItemDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,20 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchResultDto {
+    private String query;
+    private long totalHits;
+    private int page;
+    private int size;
+    private List<ItemDto> items;
+    // the last word matched more terms than are expanded, rarer matches are missing from items and totalHits
+    private boolean truncated;
+}
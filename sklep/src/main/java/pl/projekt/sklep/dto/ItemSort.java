@@ -0,0 +1,7 @@
+package pl.projekt.sklep.dto;
+
+public enum ItemSort {
+    ID,
+    PRICE,
+    NAME
+}
@@ -0,0 +1,17 @@
+package pl.projekt.sklep.dto;
+
+import pl.projekt.sklep.model.Money;
+import pl.projekt.sklep.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderLineExportRow(Long orderId, LocalDateTime orderDate, OrderStatus status, BigDecimal totalAmount,
+                                 Long itemId, String productName, Integer quantity, BigDecimal price) {
+
+    // target of the JPQL constructor expression, which hands over the entities' Money attributes
+    public OrderLineExportRow(Long orderId, LocalDateTime orderDate, OrderStatus status, Money totalAmount,
+                              Long itemId, String productName, Integer quantity, Money price) {
+        this(orderId, orderDate, status, Money.toBigDecimal(totalAmount), itemId, productName, quantity, Money.toBigDecimal(price));
+    }
+}
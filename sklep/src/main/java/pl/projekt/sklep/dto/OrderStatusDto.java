@@ -0,0 +1,15 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.projekt.sklep.model.OrderStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusDto {
+    private Long orderId;
+    private OrderStatus status;
+    private String message;
+}
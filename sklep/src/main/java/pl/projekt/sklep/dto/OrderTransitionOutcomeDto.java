@@ -0,0 +1,22 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.projekt.sklep.model.OrderStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionOutcomeDto {
+    private Long orderId;
+    private OrderStatus previousStatus;
+    private Result result;
+
+    public enum Result {
+        TRANSITIONED,
+        ALREADY_IN_STATUS,
+        INVALID_TRANSITION,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,34 @@
+package pl.projekt.sklep.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.projekt.sklep.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Orders to move to a new status, given either as ids or as a filter")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionRequest {
+
+    @Schema(description = "Status to move the orders to")
+    @NotNull(message = "Target status is required")
+    private OrderStatus targetStatus;
+
+    @Schema(description = "IDs of the orders; leave empty to select orders with the filter instead")
+    private List<Long> orderIds;
+
+    @Schema(description = "Filter: current status of the orders, required when no IDs are given")
+    private OrderStatus status;
+
+    @Schema(description = "Filter: only orders placed at or after this time")
+    private LocalDateTime from;
+
+    @Schema(description = "Filter: only orders placed before this time")
+    private LocalDateTime to;
+}
@@ -0,0 +1,18 @@
+package pl.projekt.sklep.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.projekt.sklep.model.OrderStatus;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionResultDto {
+    private OrderStatus targetStatus;
+    private int transitioned;
+    private int restockedItems;
+    private List<OrderTransitionOutcomeDto> outcomes;
+}
@@ -0,0 +1,7 @@
+package pl.projekt.sklep.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,93 @@
+package pl.projekt.sklep.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Routes {@link Idempotent} controller calls that carry an
+ * {@code Idempotency-Key} header through the {@link IdempotencyStore}. The
+ * request is fingerprinted from the method arguments, and a replayed
+ * response is marked with {@code Idempotent-Replayed: true}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdempotencyAspect {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectWriter argumentWriter;
+
+    public IdempotencyAspect(IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        this.idempotencyStore = idempotencyStore;
+        // map keys sorted, so equal requests always serialize to the same bytes
+        this.argumentWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    @Around("@annotation(pl.projekt.sklep.idempotency.Idempotent)")
+    public Object apply(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return joinPoint.proceed();
+        }
+        String key = attributes.getRequest().getHeader(KEY_HEADER);
+        if (key == null || key.isBlank()) {
+            return joinPoint.proceed();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    KEY_HEADER + " must not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Method method = signature.getMethod();
+        String name = method.getAnnotation(Idempotent.class).value();
+        String operation = name.isEmpty()
+                ? signature.getDeclaringType().getSimpleName() + "." + signature.getName()
+                : name;
+        IdempotencyStore.Outcome outcome = idempotencyStore.execute(operation, key, fingerprint(joinPoint.getArgs()),
+                method.getGenericReturnType(), IdempotencyAspect::isStorable, joinPoint::proceed);
+        HttpServletResponse response = attributes.getResponse();
+        if (outcome.replayed() && response != null) {
+            response.setHeader(REPLAYED_HEADER, "true");
+        }
+        return outcome.response();
+    }
+
+    // order endpoints answer failures as a map carrying the status, those stay retryable like thrown errors
+    private static boolean isStorable(Object response) {
+        return !(response instanceof Map<?, ?> map)
+                || !map.containsKey("statusCode")
+                || Integer.valueOf(200).equals(map.get("statusCode"));
+    }
+
+    // the arguments as the request carried them, whatever their toString does
+    String fingerprint(Object[] args) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(argumentWriter.writeValueAsBytes(args));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package pl.projekt.sklep.idempotency;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.model.IdempotencyRecord;
+import pl.projekt.sklep.repository.IdempotencyRecordRepository;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Responses of idempotent operations by operation and client key. Recent
+ * executions, finished or still running, are kept in memory so duplicates
+ * wait for the first request instead of running again; stored responses
+ * are also written to {@code idempotency_record}, which answers replays
+ * after the memory entry expired or the application restarted.
+ * <p>
+ * Only responses accepted by the caller's predicate are stored. Failures
+ * are handed to the duplicates already waiting and then forgotten, so a
+ * later retry with the same key runs again. Reusing a key for a different
+ * request answers 422, and a duplicate still waiting after
+ * {@code shop.idempotency.wait-timeout} answers 409.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Cache<String, Execution> executions;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService purger;
+
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${shop.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${shop.idempotency.memory.max-size:10000}") long memoryMaxSize,
+                            @Value("${shop.idempotency.memory.ttl:10m}") Duration memoryTtl,
+                            @Value("${shop.idempotency.purge-interval:1h}") Duration purgeInterval,
+                            @Value("${shop.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(memoryTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "idempotency");
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeSafely, purgeInterval.toMillis(), purgeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code action} once per operation and key. {@code fingerprint}
+     * identifies the request the key was first used with and
+     * {@code responseType} is what stored responses are read back as.
+     */
+    public Outcome execute(String operation, String key, String fingerprint, Type responseType,
+                           Predicate<Object> storable, Action action) throws Throwable {
+        String id = operation + ":" + key;
+        Execution mine = new Execution(fingerprint, new CompletableFuture<>());
+        Execution running = executions.asMap().putIfAbsent(id, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint(), fingerprint);
+            Object response = await(running.response());
+            replayed(operation, "memory");
+            return new Outcome(response, true);
+        }
+        try {
+            Object stored = load(id, fingerprint, responseType);
+            if (stored != null) {
+                mine.response().complete(stored);
+                replayed(operation, "database");
+                return new Outcome(stored, true);
+            }
+            Object response = action.run();
+            if (storable.test(response)) {
+                save(id, fingerprint, response);
+            } else {
+                executions.asMap().remove(id, mine);
+            }
+            mine.response().complete(response);
+            return new Outcome(response, false);
+        } catch (Throwable e) {
+            executions.asMap().remove(id, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object load(String id, String fingerprint, Type responseType) throws IOException {
+        IdempotencyRecord record = recordRepository.findById(id)
+                .filter(stored -> stored.getCreatedAt().isAfter(Instant.now().minus(ttl)))
+                .orElse(null);
+        if (record == null) {
+            return null;
+        }
+        checkFingerprint(record.getFingerprint(), fingerprint);
+        // amounts are read back as BigDecimal so a replay renders them exactly like the original response
+        return objectMapper.readerFor(objectMapper.constructType(responseType))
+                .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .readValue(record.getResponse());
+    }
+
+    // the operation already committed, losing the record only narrows replays to the memory entry
+    private void save(String id, String fingerprint, Object response) {
+        try {
+            recordRepository.save(new IdempotencyRecord(id, fingerprint,
+                    objectMapper.writeValueAsString(response), Instant.now()));
+        } catch (IOException | DataAccessException e) {
+            log.warn("Could not store the response for idempotency key {}", id, e);
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+
+    // a duplicate gives up its thread after the wait timeout, the client retries with the same key
+    private Object await(CompletableFuture<Object> response) throws Throwable {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        }
+    }
+
+    private void replayed(String operation, String source) {
+        Counter.builder("shop.idempotency.replays").tag("operation", operation).tag("source", source)
+                .register(meterRegistry).increment();
+    }
+
+    /**
+     * Deletes stored responses older than {@code shop.idempotency.ttl} and
+     * returns how many went.
+     */
+    public int purge() {
+        return recordRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+    }
+
+    private void purgeSafely() {
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                log.info("Purged {} expired idempotency records", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Idempotency record purge failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        Object run() throws Throwable;
+    }
+
+    public record Outcome(Object response, boolean replayed) {
+    }
+
+    private record Execution(String fingerprint, CompletableFuture<Object> response) {
+    }
+}
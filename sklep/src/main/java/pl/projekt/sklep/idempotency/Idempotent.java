@@ -0,0 +1,21 @@
+package pl.projekt.sklep.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes a controller method honour the {@code Idempotency-Key} request
+ * header: the first request with a key runs, duplicates get its response
+ * back. Requests without the header run as usual.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    /**
+     * Operation the keys belong to, defaults to {@code Class.method}.
+     */
+    String value() default "";
+}
@@ -9,6 +9,7 @@ import pl.projekt.sklep.dto.ItemDto;
 import pl.projekt.sklep.model.Cart;
 import pl.projekt.sklep.model.CartItem;
 import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
 
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,8 +24,8 @@ public class CartMapper {
     public CartDto toDto(Cart cart) {
         CartDto cartDto = new CartDto();
         cartDto.setCartId(cart.getCartId());
-        cartDto.setTotalAmount(cart.getTotalAmount());
-        Set<CartItemDto> itemDtos = cart.getItems().stream()
+        cartDto.setTotalAmount(Money.toBigDecimal(cart.getTotalAmount()));
+        Set<CartItemDto> itemDtos = cart.getItems().values().stream()
                 .map(this::toCartItemDto)
                 .collect(Collectors.toSet());
         cartDto.setItems(itemDtos);
@@ -35,7 +36,7 @@ public class CartMapper {
         CartItemDto cartItemDto = new CartItemDto();
         cartItemDto.setItemId(cartItem.getId());
         cartItemDto.setQuantity(cartItem.getQuantity());
-        cartItemDto.setUnitPrice(cartItem.getPrice());
+        cartItemDto.setUnitPrice(Money.toBigDecimal(cartItem.getPrice()));
         cartItemDto.setItem(toItemDto(cartItem.getItem()));
         return cartItemDto;
     }
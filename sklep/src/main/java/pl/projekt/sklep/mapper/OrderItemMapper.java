@@ -3,6 +3,7 @@ package pl.projekt.sklep.mapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import pl.projekt.sklep.dto.OrderItemDto;
+import pl.projekt.sklep.model.Money;
 import pl.projekt.sklep.model.OrderItem;
 import pl.projekt.sklep.model.Item;
 
@@ -15,14 +16,14 @@ public class OrderItemMapper {
         orderItemDto.setItemId(orderItem.getItem().getItemId());
         orderItemDto.setProductName(orderItem.getItem().getName());
         orderItemDto.setQuantity(orderItem.getQuantity());
-        orderItemDto.setPrice(orderItem.getPrice());
+        orderItemDto.setPrice(Money.toBigDecimal(orderItem.getPrice()));
         return orderItemDto;
     }
 
     public OrderItem toEntity(OrderItemDto orderItemDto) {
         OrderItem orderItem = new OrderItem();
         orderItem.setQuantity(orderItemDto.getQuantity());
-        orderItem.setPrice(orderItemDto.getPrice());
+        orderItem.setPrice(Money.ofNullable(orderItemDto.getPrice()));
         Item item = new Item();
         item.setItemId(orderItemDto.getItemId());
         item.setName(orderItemDto.getProductName());
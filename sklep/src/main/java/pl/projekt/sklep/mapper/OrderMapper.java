@@ -4,9 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import pl.projekt.sklep.dto.OrderDto;
 import pl.projekt.sklep.dto.OrderItemDto;
+import pl.projekt.sklep.model.Money;
 import pl.projekt.sklep.model.Order;
 import pl.projekt.sklep.model.OrderItem;
 import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.model.OrderSummary;
+import pl.projekt.sklep.model.OrderSummaryLine;
 
 import java.util.HashSet;
 import java.util.stream.Collectors;
@@ -21,7 +24,7 @@ public class OrderMapper {
         OrderDto orderDto = new OrderDto();
         orderDto.setOrderId(order.getOrderId());
         orderDto.setOrderDate(order.getOrderDate());
-        orderDto.setTotalAmount(order.getTotalAmount());
+        orderDto.setTotalAmount(Money.toBigDecimal(order.getTotalAmount()));
         orderDto.setStatus(order.getOrderStatus().name());
         orderDto.setItems(order.getOrderItems().stream()
                 .map(orderItemMapper::toDto)
@@ -29,11 +32,32 @@ public class OrderMapper {
         return orderDto;
     }
 
+    public OrderDto toDto(OrderSummary summary) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderId(summary.getOrderId());
+        orderDto.setOrderDate(summary.getOrderDate());
+        orderDto.setTotalAmount(Money.toBigDecimal(summary.getTotalAmount()));
+        orderDto.setStatus(summary.getOrderStatus().name());
+        orderDto.setItems(summary.getLines().stream()
+                .map(OrderMapper::toItemDto)
+                .collect(Collectors.toList()));
+        return orderDto;
+    }
+
+    private static OrderItemDto toItemDto(OrderSummaryLine line) {
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setItemId(line.getItemId());
+        orderItemDto.setProductName(line.getProductName());
+        orderItemDto.setQuantity(line.getQuantity());
+        orderItemDto.setPrice(line.getPrice());
+        return orderItemDto;
+    }
+
     public Order toEntity(OrderDto orderDto) {
         Order order = new Order();
         order.setOrderId(orderDto.getOrderId());
         order.setOrderDate(orderDto.getOrderDate());
-        order.setTotalAmount(orderDto.getTotalAmount());
+        order.setTotalAmount(Money.ofNullable(orderDto.getTotalAmount()));
         order.setOrderStatus(OrderStatus.valueOf(orderDto.getStatus()));
         order.setOrderItems(new HashSet<>(orderDto.getItems().stream()
                 .map(orderItemMapper::toEntity)
@@ -5,23 +5,54 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 
 @Getter
 @Setter
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_cart_last_touched", columnList = "last_touched"))
 public class Cart {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long cartId;
     @Version
     private Long version;
-    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private Money totalAmount = Money.ZERO;
+    // moved on every change; the expiry sweeper walks the index on this column
+    @Column(name = "last_touched")
+    private Instant lastTouched;
 
+    // lines keyed by item id, so a mutation finds its line without walking the cart
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
-    private Set<CartItem> items = new HashSet<>();
+    @MapKey(name = "itemId")
+    private Map<Long, CartItem> items = new HashMap<>();
 
+    public CartItem getLine(Long itemId) {
+        return items.get(itemId);
+    }
+
+    public void putLine(CartItem line) {
+        line.setCart(this);
+        CartItem previous = items.put(line.getItemId(), line);
+        addToTotal(CartItem.lineTotal(line).minus(CartItem.lineTotal(previous)));
+    }
+
+    public CartItem removeLine(Long itemId) {
+        CartItem removed = items.remove(itemId);
+        addToTotal(CartItem.lineTotal(removed).negate());
+        return removed;
+    }
+
+    public void addToTotal(Money delta) {
+        totalAmount = (totalAmount == null ? Money.ZERO : totalAmount).plus(delta);
+        touch();
+    }
+
+    @PrePersist
+    public void touch() {
+        lastTouched = Instant.now();
+    }
 }
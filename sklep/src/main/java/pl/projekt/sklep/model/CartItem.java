@@ -6,7 +6,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
@@ -18,20 +17,36 @@ public class CartItem {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private int quantity;
-    private BigDecimal price;
-    private BigDecimal totalPrice;
+    private Money price;
+    private Money totalPrice;
 
     @ManyToOne
     @JoinColumn(name = "item_id")
     private Item item;
 
+    // read-only copy of the foreign key, used as the key of Cart.items
+    @Column(name = "item_id", insertable = false, updatable = false)
+    private Long itemId;
+
     @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id")
     private Cart cart;
 
+    public void setItem(Item item) {
+        this.item = item;
+        this.itemId = item == null ? null : item.getItemId();
+    }
+
     public void setTotalPrice() {
-        this.totalPrice = this.price.multiply(new BigDecimal(quantity));
+        this.totalPrice = this.price.times(quantity);
+    }
+
+    public static Money lineTotal(CartItem line) {
+        if (line == null || line.getPrice() == null) {
+            return Money.ZERO;
+        }
+        return line.getTotalPrice() != null ? line.getTotalPrice() : line.getPrice().times(line.getQuantity());
     }
 
     @Override
@@ -0,0 +1,29 @@
+package pl.projekt.sklep.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+    // the operation and the client's key, see IdempotencyStore
+    @Id
+    @Column(length = 400)
+    private String id;
+    @Column(length = 44, nullable = false)
+    private String fingerprint;
+    @Lob
+    @Column(nullable = false)
+    private String response;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
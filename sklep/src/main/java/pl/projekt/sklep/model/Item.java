@@ -11,6 +11,10 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_item_name_id", columnList = "name, item_id"),
+        @Index(name = "idx_item_price_id", columnList = "price, item_id")
+})
 public class Item {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
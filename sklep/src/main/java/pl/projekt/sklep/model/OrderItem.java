@@ -6,8 +6,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-
 @Setter
 @Getter
 @Entity
@@ -18,7 +16,7 @@ public class OrderItem {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private int quantity;
-    private BigDecimal price;
+    private Money price;
 
     @ManyToOne
     @JoinColumn(name = "order_id")
@@ -28,7 +26,7 @@ public class OrderItem {
     @JoinColumn(name = "item_id")
     private Item item;
 
-    public OrderItem(Order order, Item item, int quantity, BigDecimal price) {
+    public OrderItem(Order order, Item item, int quantity, Money price) {
         this.order = order;
         this.item = item;
         this.quantity = quantity;
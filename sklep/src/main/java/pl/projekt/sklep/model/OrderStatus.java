@@ -1,9 +1,21 @@
 package pl.projekt.sklep.model;
 
 public enum OrderStatus {
+    QUEUED,
     PENDING,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED,
+    FAILED;
+
+    // QUEUED and FAILED belong to the checkout queue, DELIVERED and CANCELLED are final
+    public boolean canTransitionTo(OrderStatus target) {
+        return switch (this) {
+            case PENDING -> target == PROCESSING || target == CANCELLED;
+            case PROCESSING -> target == SHIPPED || target == CANCELLED;
+            case SHIPPED -> target == DELIVERED;
+            default -> false;
+        };
+    }
 }
@@ -0,0 +1,38 @@
+package pl.projekt.sklep.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model of an order: the header and its lines in one row, written
+ * together with the order. Product names and prices are copied at
+ * checkout, so later catalog changes do not rewrite order history.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_date_id", columnList = "order_date, order_id"),
+        @Index(name = "idx_order_summary_status_date_id", columnList = "order_status, order_date, order_id")
+})
+public class OrderSummary {
+    @Id
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private Money totalAmount;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+    private String failureReason;
+    @Lob
+    @Convert(converter = OrderSummaryLinesConverter.class)
+    private List<OrderSummaryLine> lines = new ArrayList<>();
+}
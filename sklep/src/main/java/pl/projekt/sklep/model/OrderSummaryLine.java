@@ -0,0 +1,18 @@
+package pl.projekt.sklep.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// one order line as it was at checkout, kept inside OrderSummary
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryLine {
+    private Long itemId;
+    private String productName;
+    private int quantity;
+    private BigDecimal price;
+}
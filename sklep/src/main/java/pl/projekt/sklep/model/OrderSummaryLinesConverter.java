@@ -0,0 +1,38 @@
+package pl.projekt.sklep.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Converter
+public class OrderSummaryLinesConverter implements AttributeConverter<List<OrderSummaryLine>, String> {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<OrderSummaryLine>> LINES = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<OrderSummaryLine> lines) {
+        try {
+            return MAPPER.writeValueAsString(lines == null ? List.of() : lines);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order lines", e);
+        }
+    }
+
+    @Override
+    public List<OrderSummaryLine> convertToEntityAttribute(String json) {
+        if (json == null || json.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return MAPPER.readValue(json, LINES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read order lines", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pl.projekt.sklep.projection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.projekt.sklep.model.Money;
+import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.model.OrderItem;
+import pl.projekt.sklep.model.OrderSummary;
+import pl.projekt.sklep.model.OrderSummaryLine;
+import pl.projekt.sklep.repository.OrderRepository;
+import pl.projekt.sklep.repository.OrderSummaryRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps {@link OrderSummary} in step with the orders. Every order write
+ * calls in here inside its own transaction, so the summary commits or
+ * rolls back with the order. Orders placed before the read model existed
+ * are projected once at startup.
+ */
+@Slf4j
+@Component
+public class OrderSummaryProjector {
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderSummaryProjector(OrderSummaryRepository orderSummaryRepository, OrderRepository orderRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void record(Order order) {
+        orderSummaryRepository.save(toSummary(order));
+    }
+
+    public void markFailed(Long orderId, String reason) {
+        orderSummaryRepository.markFailed(orderId, reason);
+    }
+
+    public void delete(Long orderId) {
+        orderSummaryRepository.deleteById(orderId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int projected = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> {
+                List<Long> orderIds = orderRepository.findIdsWithoutSummary(PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                if (!orderIds.isEmpty()) {
+                    orderRepository.findWithItemsByOrderIdIn(orderIds).forEach(this::record);
+                }
+                return orderIds.size();
+            });
+            projected += chunk;
+        } while (chunk == BACKFILL_CHUNK_SIZE);
+        if (projected > 0) {
+            log.info("Projected {} orders into the order summary", projected);
+        }
+    }
+
+    private static OrderSummary toSummary(Order order) {
+        List<OrderSummaryLine> lines = order.getOrderItems().stream()
+                .sorted(Comparator.comparing(line -> line.getItem().getItemId()))
+                .map(OrderSummaryProjector::toLine)
+                .toList();
+        return new OrderSummary(order.getOrderId(), order.getOrderDate(), order.getTotalAmount(),
+                order.getOrderStatus(), order.getFailureReason(), lines);
+    }
+
+    private static OrderSummaryLine toLine(OrderItem line) {
+        return new OrderSummaryLine(line.getItem().getItemId(), line.getItem().getName(), line.getQuantity(),
+                Money.toBigDecimal(line.getPrice()));
+    }
+}
@@ -1,8 +1,15 @@
 package pl.projekt.sklep.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.projekt.sklep.model.CartItem;
 
+import java.util.Collection;
+
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    void deleteAllById(Long id);
+    @Modifying(flushAutomatically = true)
+    @Query("delete from CartItem ci where ci.cart.cartId in :cartIds")
+    int deleteByCartIds(@Param("cartIds") Collection<Long> cartIds);
 }
@@ -1,7 +1,30 @@
 package pl.projekt.sklep.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.projekt.sklep.model.Cart;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    @Query("select c.version from Cart c where c.cartId = :cartId")
+    Optional<Long> findVersionById(@Param("cartId") Long cartId);
+
+    // oldest first through the last_touched index; the row locks keep a late writer from reviving a cart mid-purge
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c.cartId from Cart c where c.lastTouched < :cutoff order by c.lastTouched")
+    List<Long> lockExpiredIds(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Cart c where c.cartId in :cartIds")
+    int deleteByCartIds(@Param("cartIds") Collection<Long> cartIds);
 }
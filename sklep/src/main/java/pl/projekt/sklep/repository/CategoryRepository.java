@@ -3,9 +3,13 @@ package pl.projekt.sklep.repository;
 import org.springframework.data.repository.CrudRepository;
 import pl.projekt.sklep.model.Category;
 
+import java.util.Collection;
+import java.util.List;
 
 public interface CategoryRepository extends CrudRepository<Category, Long> {
     Category findByName(String name);
 
     boolean existsByName(String name);
+
+    List<Category> findByNameIn(Collection<String> names);
 }
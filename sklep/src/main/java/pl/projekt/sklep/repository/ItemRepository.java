@@ -1,13 +1,66 @@
 package pl.projekt.sklep.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import pl.projekt.sklep.dto.FacetCountDto;
+import pl.projekt.sklep.dto.ItemExportRow;
 import pl.projekt.sklep.model.Item;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     List<Item> findByCategoryName(String category);
     List<Item> findByName(String name);
     List<Item> findByCategoryId(Long categoryId);
     Long countByName(String name);
+
+    @Query("select i from Item i left join fetch i.category where i.itemId > :lastId order by i.itemId")
+    List<Item> findPageOrderedById(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("select i from Item i left join fetch i.category where i.price is not null order by i.price, i.itemId")
+    List<Item> findFirstPageOrderedByPrice(Pageable pageable);
+
+    @Query("select i from Item i left join fetch i.category where i.price > :lastPrice " +
+            "or (i.price = :lastPrice and i.itemId > :lastId) order by i.price, i.itemId")
+    List<Item> findPageOrderedByPrice(@Param("lastPrice") BigDecimal lastPrice, @Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("select i from Item i left join fetch i.category where i.name is not null order by i.name, i.itemId")
+    List<Item> findFirstPageOrderedByName(Pageable pageable);
+
+    @Query("select i from Item i left join fetch i.category where i.name > :lastName " +
+            "or (i.name = :lastName and i.itemId > :lastId) order by i.name, i.itemId")
+    List<Item> findPageOrderedByName(@Param("lastName") String lastName, @Param("lastId") Long lastId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new pl.projekt.sklep.dto.ItemExportRow(i.itemId, i.name, i.price, i.inventory, i.description, c.id, c.name) " +
+            "from Item i left join i.category c order by i.itemId")
+    Stream<ItemExportRow> streamForExport();
+
+    // each facet ignores the filter on its own dimension, so the sidebar still offers the alternatives
+    @Query("select new pl.projekt.sklep.dto.FacetCountDto(c.name, count(i)) from Item i left join i.category c " +
+            "where (:minPrice is null or i.price >= :minPrice) and (:maxPrice is null or i.price <= :maxPrice) " +
+            "group by c.name order by count(i) desc, c.name nulls last")
+    List<FacetCountDto> countByCategory(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+
+    // bucketed in a derived table because H2 rejects a parameterised expression in GROUP BY
+    @Query("select b.bucket, count(*) from (select floor(i.price / :width) as bucket from Item i left join i.category c " +
+            "where i.price is not null and (:category is null or c.name = :category)) b " +
+            "group by b.bucket order by b.bucket")
+    List<Object[]> priceHistogram(@Param("category") String category, @Param("width") BigDecimal width, Pageable pageable);
+
+    @Query("select count(i), coalesce(sum(case when i.inventory > 0 then 1 else 0 end), 0) from Item i left join i.category c " +
+            "where (:category is null or c.name = :category) " +
+            "and (:minPrice is null or i.price >= :minPrice) and (:maxPrice is null or i.price <= :maxPrice)")
+    List<Object[]> countTotalAndInStock(@Param("category") String category,
+                                        @Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
 }
@@ -1,7 +1,73 @@
 package pl.projekt.sklep.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import pl.projekt.sklep.dto.OrderLineExportRow;
+import pl.projekt.sklep.dto.OrderStatusDto;
 import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new pl.projekt.sklep.dto.OrderLineExportRow(o.orderId, o.orderDate, o.orderStatus, o.totalAmount, " +
+            "i.itemId, i.name, oi.quantity, oi.price) " +
+            "from Order o left join o.orderItems oi left join oi.item i order by o.orderId, oi.id")
+    Stream<OrderLineExportRow> streamLinesForExport();
+
+    @Query("select new pl.projekt.sklep.dto.OrderStatusDto(o.orderId, o.orderStatus, o.failureReason) " +
+            "from Order o where o.orderId = :orderId")
+    Optional<OrderStatusDto> findStatusById(@Param("orderId") Long orderId);
+
+    @Query("select o.orderId from Order o where o.orderStatus = :status order by o.orderId")
+    List<Long> findIdsByStatus(@Param("status") OrderStatus status);
+
+    @Modifying
+    @Query("update Order o set o.orderStatus = pl.projekt.sklep.model.OrderStatus.FAILED, o.failureReason = :reason " +
+            "where o.orderId = :orderId and o.orderStatus = pl.projekt.sklep.model.OrderStatus.QUEUED")
+    int markFailed(@Param("orderId") Long orderId, @Param("reason") String reason);
+
+    @Query("select o.orderId from Order o " +
+            "where not exists (select 1 from OrderSummary s where s.orderId = o.orderId) order by o.orderId")
+    List<Long> findIdsWithoutSummary(Pageable pageable);
+
+    // lines, their items and the items' categories come in the same select as the orders
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.item", "orderItems.item.category"})
+    @Query("select distinct o from Order o where o.orderId in :orderIds")
+    List<Order> findWithItemsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new pl.projekt.sklep.dto.OrderStatusDto(o.orderId, o.orderStatus, o.failureReason) " +
+            "from Order o where o.orderId in :orderIds order by o.orderId")
+    List<OrderStatusDto> lockStatusesByIds(@Param("orderIds") Collection<Long> orderIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new pl.projekt.sklep.dto.OrderStatusDto(o.orderId, o.orderStatus, o.failureReason) " +
+            "from Order o where o.orderStatus = :status " +
+            "and (:from is null or o.orderDate >= :from) and (:to is null or o.orderDate < :to) order by o.orderId")
+    List<OrderStatusDto> lockStatusesByFilter(@Param("status") OrderStatus status, @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.orderStatus = :target where o.orderId in :orderIds and o.orderStatus = :source")
+    int transitionStatus(@Param("orderIds") Collection<Long> orderIds, @Param("source") OrderStatus source,
+                         @Param("target") OrderStatus target);
 }
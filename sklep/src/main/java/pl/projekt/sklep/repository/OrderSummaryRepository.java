@@ -0,0 +1,45 @@
+package pl.projekt.sklep.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.model.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    @Query("select s from OrderSummary s " +
+            "where (:status is null or s.orderStatus = :status) " +
+            "and (:from is null or s.orderDate >= :from) and (:to is null or s.orderDate < :to) " +
+            "order by s.orderDate desc, s.orderId desc")
+    List<OrderSummary> findFirstPage(@Param("status") OrderStatus status, @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("select s from OrderSummary s " +
+            "where (:status is null or s.orderStatus = :status) " +
+            "and (:from is null or s.orderDate >= :from) and (:to is null or s.orderDate < :to) " +
+            "and (s.orderDate < :lastDate or (s.orderDate = :lastDate and s.orderId < :lastId)) " +
+            "order by s.orderDate desc, s.orderId desc")
+    List<OrderSummary> findPageAfter(@Param("status") OrderStatus status, @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to, @Param("lastDate") LocalDateTime lastDate,
+                                     @Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("select s from OrderSummary s order by s.orderId")
+    List<OrderSummary> findAllOrderedById();
+
+    @Modifying
+    @Query("update OrderSummary s set s.orderStatus = pl.projekt.sklep.model.OrderStatus.FAILED, s.failureReason = :reason " +
+            "where s.orderId = :orderId and s.orderStatus = pl.projekt.sklep.model.OrderStatus.QUEUED")
+    int markFailed(@Param("orderId") Long orderId, @Param("reason") String reason);
+
+    @Modifying
+    @Query("update OrderSummary s set s.orderStatus = :target where s.orderId in :orderIds and s.orderStatus = :source")
+    int transitionStatus(@Param("orderIds") Collection<Long> orderIds, @Param("source") OrderStatus source,
+                         @Param("target") OrderStatus target);
+}
@@ -0,0 +1,102 @@
+package pl.projekt.sklep.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry policy for {@link RetryOnConflict} methods: exponential backoff with
+ * full jitter up to a fixed number of attempts. Ordered inside the cart
+ * partitions but before the transaction interceptor, so every attempt gets a
+ * fresh transaction and sees the winner's commit. Exhausting the budget
+ * answers 409.
+ * <p>
+ * Metrics, tagged with the operation: {@code shop.cart.conflicts} counts
+ * lost races, {@code shop.cart.conflicts.exhausted} counts calls that gave
+ * up and {@code shop.cart.conflict.attempts} is a histogram of attempts per
+ * call that hit at least one conflict.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OptimisticLockRetryAspect {
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticLockRetryAspect(MeterRegistry meterRegistry,
+                                     @Value("${shop.cart.retry.max-attempts:4}") int maxAttempts,
+                                     @Value("${shop.cart.retry.initial-backoff:10ms}") Duration initialBackoff,
+                                     @Value("${shop.cart.retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    // the annotation is looked up rather than bound: binding needs ExposeInvocationInterceptor, which runs after us
+    @Around("@annotation(pl.projekt.sklep.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String name = signature.getMethod().getAnnotation(RetryOnConflict.class).value();
+        String operation = name.isEmpty()
+                ? signature.getDeclaringType().getSimpleName() + "." + signature.getName()
+                : name;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    attempts(operation).record(attempt);
+                }
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                Counter.builder("shop.cart.conflicts").tag("operation", operation)
+                        .register(meterRegistry).increment();
+                if (attempt >= maxAttempts) {
+                    attempts(operation).record(attempt);
+                    Counter.builder("shop.cart.conflicts.exhausted").tag("operation", operation)
+                            .register(meterRegistry).increment();
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Cart was modified concurrently, please retry", e);
+                }
+                TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(backoffNanos(attempt) + 1));
+            }
+        }
+    }
+
+    // upper bound of the jittered sleep after the given failed attempt
+    long backoffNanos(int attempt) {
+        long backoff = initialBackoffNanos;
+        for (int i = 1; i < attempt && backoff < maxBackoffNanos; i++) {
+            backoff = Math.min(backoff * 2, maxBackoffNanos);
+        }
+        return backoff;
+    }
+
+    private DistributionSummary attempts(String operation) {
+        return DistributionSummary.builder("shop.cart.conflict.attempts")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package pl.projekt.sklep.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the whole transactional method when it loses an optimistic lock
+ * race. Only the outermost annotated call retries; nested calls run inside
+ * the caller's transaction and let the conflict propagate to it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Name used in the conflict metrics, defaults to {@code Class.method}.
+     */
+    String value() default "";
+}
@@ -0,0 +1,415 @@
+package pl.projekt.sklep.search;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import pl.projekt.sklep.cache.AfterCommit;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.mapper.ItemMapper;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over item name and description, ranked with BM25.
+ * Every query term must match (the last one also as a prefix), name matches
+ * weigh more than description matches. A prefix expands to at most
+ * {@value #MAX_PREFIX_EXPANSIONS} of its most frequent terms, and hits cut by
+ * that limit are flagged as truncated. Stored documents are the mapped
+ * {@link ItemDto}s so search results never touch the database. Changes are
+ * applied once the surrounding transaction commits.
+ * <p>
+ * A rebuild loads a new {@link Segment} next to the current one, which keeps
+ * answering searches until the new one is complete.
+ */
+@Component
+public class ItemSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int NAME_WEIGHT = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int REBUILD_CHUNK = 1000;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final ItemRepository itemRepository;
+    private final ItemMapper itemMapper;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // both guarded by the lock
+    private Segment current = new Segment();
+    // writes that commit while a rebuild is loading, replayed on top of it
+    private List<Consumer<Segment>> pending;
+
+    public ItemSearchIndex(ItemRepository itemRepository, ItemMapper itemMapper) {
+        this.itemRepository = itemRepository;
+        this.itemMapper = itemMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Segment loaded = new Segment();
+        try {
+            long lastId = 0L;
+            List<Item> chunk;
+            do {
+                chunk = itemRepository.findPageOrderedById(lastId, PageRequest.of(0, REBUILD_CHUNK));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                chunk.stream().map(itemMapper::toDto).forEach(loaded::put);
+                lastId = chunk.get(chunk.size() - 1).getItemId();
+            } while (chunk.size() == REBUILD_CHUNK);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            pending.forEach(write -> write.accept(loaded));
+            pending = null;
+            current = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        index(itemMapper.toDto(item));
+    }
+
+    public void index(ItemDto item) {
+        write(segment -> segment.index(item));
+    }
+
+    public void remove(Long itemId) {
+        write(segment -> segment.remove(itemId));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchHits(0, List.of(), false);
+        }
+        lock.readLock().lock();
+        try {
+            return current.search(terms, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('ł', 'l');
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // the live segment stays current during a rebuild, the loading one gets the change replayed
+    private void write(Consumer<Segment> change) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                change.accept(current);
+                if (pending != null) {
+                    pending.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static int totalSize(List<TermPostings> termPostings) {
+        return termPostings.stream().mapToInt(term -> term.postings().size).sum();
+    }
+
+    public record SearchHits(long total, List<ItemDto> items, boolean truncated) {
+    }
+
+    private record TermPostings(Postings postings, float idf) {
+    }
+
+    private record ScoredDoc(int doc, Long itemId, float score) {
+        // lowest score first, ties broken so that lower item ids rank higher
+        static final Comparator<ScoredDoc> WORST_FIRST = Comparator.comparingDouble(ScoredDoc::score)
+                .thenComparing(ScoredDoc::itemId, Comparator.reverseOrder());
+    }
+
+    /**
+     * Postings and stored documents of one index generation.
+     */
+    private static final class Segment {
+        private final NavigableMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Long, Integer> docByItemId = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private ItemDto[] docs = new ItemDto[1024];
+        private int[] docLengths = new int[1024];
+        private int maxDoc;
+        private int liveDocs;
+        private long totalLength;
+
+        SearchHits search(List<String> terms, int offset, int limit) {
+            List<List<TermPostings>> matches = new ArrayList<>(terms.size());
+            boolean truncated = false;
+            for (int i = 0; i < terms.size(); i++) {
+                List<TermPostings> termPostings;
+                if (i == terms.size() - 1) {
+                    List<Postings> expansions = expandPrefix(terms.get(i));
+                    truncated = expansions.size() > MAX_PREFIX_EXPANSIONS;
+                    termPostings = mostFrequent(expansions).stream().map(this::withIdf).toList();
+                } else {
+                    termPostings = exact(terms.get(i));
+                }
+                if (termPostings.isEmpty()) {
+                    return new SearchHits(0, List.of(), false);
+                }
+                matches.add(termPostings);
+            }
+            // drive the intersection from the rarest term, probe the others by binary search
+            List<TermPostings> driver = matches.stream()
+                    .min(Comparator.comparingInt(ItemSearchIndex::totalSize))
+                    .orElseThrow();
+            List<List<TermPostings>> others = matches.stream().filter(term -> term != driver).toList();
+            float avgLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+
+            // one entry per driver posting, the document in the high half and the score bits in the low half;
+            // BM25 scores are positive, so their bits sort like the floats and the work follows the postings only
+            long[] candidates = new long[totalSize(driver)];
+            int candidateCount = 0;
+            for (TermPostings term : driver) {
+                Postings termPostings = term.postings();
+                for (int i = 0; i < termPostings.size; i++) {
+                    int doc = termPostings.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    float score = bm25(term.idf(), termPostings.freqs[i], doc, avgLength);
+                    candidates[candidateCount++] = (long) doc << 32 | Float.floatToIntBits(score);
+                }
+            }
+            // a single term lists each document once in doc order; an expanded prefix can list it once per term
+            if (driver.size() > 1) {
+                Arrays.sort(candidates, 0, candidateCount);
+            }
+
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(ScoredDoc.WORST_FIRST);
+            int window = offset + limit;
+            long total = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                int doc = (int) (candidates[c] >>> 32);
+                // keep only the last, best scored, entry of a document
+                if (c + 1 < candidateCount && (int) (candidates[c + 1] >>> 32) == doc) {
+                    continue;
+                }
+                float score = score(others, doc, avgLength);
+                if (score < 0) {
+                    continue;
+                }
+                score += Float.intBitsToFloat((int) candidates[c]);
+                total++;
+                if (top.size() < window) {
+                    top.add(new ScoredDoc(doc, docs[doc].getItemId(), score));
+                } else if (score >= top.peek().score()) {
+                    ScoredDoc scored = new ScoredDoc(doc, docs[doc].getItemId(), score);
+                    if (ScoredDoc.WORST_FIRST.compare(scored, top.peek()) > 0) {
+                        top.poll();
+                        top.add(scored);
+                    }
+                }
+            }
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(ScoredDoc.WORST_FIRST.reversed());
+            List<ItemDto> page = ranked.stream()
+                    .skip(offset)
+                    .map(scored -> docs[scored.doc()])
+                    .toList();
+            return new SearchHits(total, page, truncated);
+        }
+
+        void index(ItemDto item) {
+            put(item);
+            if (maxDoc - liveDocs > Math.max(REBUILD_CHUNK, liveDocs)) {
+                compact();
+            }
+        }
+
+        void remove(Long itemId) {
+            Integer doc = docByItemId.remove(itemId);
+            if (doc != null) {
+                delete(doc);
+            }
+        }
+
+        // sum of the best posting score per term, or -1 when some term does not occur in the document
+        private float score(List<List<TermPostings>> terms, int doc, float avgLength) {
+            float score = 0;
+            for (List<TermPostings> term : terms) {
+                float best = -1;
+                for (TermPostings candidate : term) {
+                    Postings termPostings = candidate.postings();
+                    int index = Arrays.binarySearch(termPostings.docs, 0, termPostings.size, doc);
+                    if (index >= 0) {
+                        best = Math.max(best, bm25(candidate.idf(), termPostings.freqs[index], doc, avgLength));
+                    }
+                }
+                if (best < 0) {
+                    return -1;
+                }
+                score += best;
+            }
+            return score;
+        }
+
+        private float bm25(float idf, int freq, int doc, float avgLength) {
+            float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+            return idf * freq * (K1 + 1) / (freq + norm);
+        }
+
+        private List<TermPostings> exact(String term) {
+            Postings termPostings = postings.get(term);
+            return termPostings == null ? List.of() : List.of(withIdf(termPostings));
+        }
+
+        // one past the limit, so the caller can tell a prefix that was cut
+        private List<Postings> expandPrefix(String prefix) {
+            PriorityQueue<Postings> kept = new PriorityQueue<>(Comparator.comparingInt((Postings term) -> term.size));
+            for (Postings term : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                kept.add(term);
+                if (kept.size() > MAX_PREFIX_EXPANSIONS + 1) {
+                    kept.poll();
+                }
+            }
+            return new ArrayList<>(kept);
+        }
+
+        // the most frequent expansions cover the most documents
+        private static List<Postings> mostFrequent(List<Postings> expansions) {
+            if (expansions.size() <= MAX_PREFIX_EXPANSIONS) {
+                return expansions;
+            }
+            return expansions.stream()
+                    .sorted(Comparator.comparingInt((Postings term) -> term.size).reversed())
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .toList();
+        }
+
+        private TermPostings withIdf(Postings termPostings) {
+            int df = Math.min(termPostings.size, Math.max(liveDocs, 1));
+            return new TermPostings(termPostings, (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5)));
+        }
+
+        void put(ItemDto item) {
+            Integer existing = docByItemId.get(item.getItemId());
+            if (existing != null) {
+                ItemDto current = docs[existing];
+                if (Objects.equals(current.getName(), item.getName())
+                        && Objects.equals(current.getDescription(), item.getDescription())) {
+                    // price, stock or category changes do not affect the postings
+                    docs[existing] = item;
+                    return;
+                }
+                delete(existing);
+            }
+            Map<String, Integer> freqs = new HashMap<>();
+            tokenize(item.getName()).forEach(token -> freqs.merge(token, NAME_WEIGHT, Integer::sum));
+            tokenize(item.getDescription()).forEach(token -> freqs.merge(token, 1, Integer::sum));
+
+            int doc = maxDoc++;
+            if (doc == docs.length) {
+                docs = Arrays.copyOf(docs, doc * 2);
+                docLengths = Arrays.copyOf(docLengths, doc * 2);
+            }
+            int length = freqs.values().stream().mapToInt(Integer::intValue).sum();
+            docs[doc] = item;
+            docLengths[doc] = length;
+            totalLength += length;
+            liveDocs++;
+            freqs.forEach((term, freq) -> postings.computeIfAbsent(term, key -> new Postings()).add(doc, freq));
+            docByItemId.put(item.getItemId(), doc);
+        }
+
+        private void delete(int doc) {
+            deleted.set(doc);
+            docs[doc] = null;
+            totalLength -= docLengths[doc];
+            liveDocs--;
+        }
+
+        // drops tombstoned documents once they outnumber the live ones
+        private void compact() {
+            List<ItemDto> live = new ArrayList<>(liveDocs);
+            for (int doc = 0; doc < maxDoc; doc++) {
+                if (!deleted.get(doc)) {
+                    live.add(docs[doc]);
+                }
+            }
+            clear();
+            live.forEach(this::put);
+        }
+
+        private void clear() {
+            postings.clear();
+            docByItemId.clear();
+            deleted.clear();
+            docs = new ItemDto[1024];
+            docLengths = new int[1024];
+            maxDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+}
@@ -2,14 +2,24 @@ package pl.projekt.sklep.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cart.CartPartitioned;
+import pl.projekt.sklep.cart.CartStore;
+import pl.projekt.sklep.dto.CartDto;
+import pl.projekt.sklep.dto.CartOperationDto;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.mapper.CartMapper;
 import pl.projekt.sklep.model.Cart;
 import pl.projekt.sklep.model.CartItem;
 import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
 import pl.projekt.sklep.repository.CartRepository;
+import pl.projekt.sklep.retry.RetryOnConflict;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -17,96 +27,120 @@ public class CartItemService implements CartItemServiceInterface {
     private final CartRepository cartRepository;
     private final ItemServiceInterface itemService;
     private final CartServiceInterface cartService;
+    private final CartMapper cartMapper;
+    private final CartStore cartStore;
 
 
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     @Override
     public void addItemToCart(Long cartId, String name, int quantity) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
-
-        Cart cart = cartService.getCart(cartId);
-        Item item = itemService.getItemByName(name);
-
-        if (item.getPrice() == null) {
-            throw new IllegalStateException("Item price cannot be null");
-        }
-
-        CartItem cartItem = cart.getItems()
-                .stream()
-                .filter(cartItem1 -> cartItem1.getItem().getName().equals(name))
-                .findFirst()
-                .orElseGet(() -> {
-                    CartItem newItem = new CartItem();
-                    newItem.setCart(cart);
-                    newItem.setItem(item);
-                    newItem.setPrice(item.getPrice());
-                    cart.getItems().add(newItem); // Add to cart's items set
-                    return newItem;
-                });
-
-        cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        cartItem.setTotalPrice();
-
-        // Update cart's total amount
-        cart.setTotalAmount(cart.getItems()
-                .stream()
-                .map(CartItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-        cartRepository.save(cart);
+        mutate(cartId, cart -> addLine(cart, name, quantity));
     }
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     @Override
     public void removeItemFromCart(Long cartId, String name) throws ResourceNotFoundException {
-        Cart cart = cartService.getCart(cartId);
-        CartItem itemToRemove = cart.getItems()
-                .stream()
-                .filter(item -> item.getItem().getName().equals(name))
-                .findFirst()
-                .orElseThrow(() -> new ResourceNotFoundException("Item not found in cart"));
-
-        cart.getItems().remove(itemToRemove);
-
-        // Update cart's total amount
-        cart.setTotalAmount(cart.getItems()
-                .stream()
-                .map(CartItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-        cartRepository.save(cart); // Cascade handles orphan removal
+        mutate(cartId, cart -> removeLine(cart, name)); // Cascade handles orphan removal
     }
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     @Override
     public void updateItemQuantity(Long cartId, String name, int quantity) throws ResourceNotFoundException {
         try {
-            Cart cart = cartService.getCart(cartId);
-            cart.getItems()
-                    .stream()
-                    .filter(item -> item.getItem().getName().equals(name))
-                    .findFirst()
-                    .ifPresent(item -> {
-                        item.setQuantity(quantity);
-                        item.setPrice(item.getItem().getPrice());
-                        item.setTotalPrice();
-                    });
-            BigDecimal totalAmount = cart.getItems()
-                    .stream()
-                    .map(CartItem::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            cart.setTotalAmount(totalAmount);
-            cartRepository.save(cart);
+            mutate(cartId, cart -> updateLine(cart, name, quantity));
         } catch (ResourceNotFoundException e) {
             throw new ResourceNotFoundException("Failed to update item quantity: " + e.getMessage());
         }
     }
 
+    // one load, one version check and one flush for the whole list; any failure rolls back every operation
+    @CartPartitioned
+    @RetryOnConflict
+    @Transactional
+    @Override
+    public CartDto applyOperations(Long cartId, List<CartOperationDto> operations) throws ResourceNotFoundException {
+        Long id = cartId == null ? cartService.initializeNewCart() : cartId;
+        return cartMapper.toDto(mutate(id, cart -> {
+            for (CartOperationDto operation : operations) {
+                switch (operation.getType()) {
+                    case ADD -> addLine(cart, operation.getItemName(), requireQuantity(operation));
+                    case UPDATE -> updateLine(cart, operation.getItemName(), requireQuantity(operation));
+                    case REMOVE -> removeLine(cart, operation.getItemName());
+                }
+            }
+        }));
+    }
+
+    // the in-memory store applies the change to a copy, so a failing change never leaves a half-updated cart
+    private Cart mutate(Long cartId, Consumer<Cart> change) {
+        if (cartStore.isEnabled()) {
+            return cartStore.update(cartId, change);
+        }
+        Cart cart = cartService.getCart(cartId);
+        change.accept(cart);
+        return cartRepository.save(cart);
+    }
+
+    private int requireQuantity(CartOperationDto operation) {
+        if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Quantity must be positive for " + operation.getType() + " of " + operation.getItemName());
+        }
+        return operation.getQuantity();
+    }
 
+    private void addLine(Cart cart, String name, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Item item = itemService.getItemByName(name);
+        if (item.getPrice() == null) {
+            throw new IllegalStateException("Item price cannot be null");
+        }
+
+        CartItem cartItem = cart.getLine(item.getItemId());
+        if (cartItem == null) {
+            CartItem newItem = new CartItem();
+            newItem.setItem(item);
+            newItem.setPrice(Money.of(item.getPrice()));
+            newItem.setQuantity(quantity);
+            newItem.setTotalPrice();
+            cart.putLine(newItem);
+        } else {
+            Money previousTotal = CartItem.lineTotal(cartItem);
+            cartItem.setQuantity(cartItem.getQuantity() + quantity);
+            cartItem.setTotalPrice();
+            cart.addToTotal(CartItem.lineTotal(cartItem).minus(previousTotal));
+        }
+    }
+
+    private void removeLine(Cart cart, String name) {
+        Long itemId = itemService.getItemByName(name).getItemId();
+        if (cart.removeLine(itemId) == null) {
+            throw new ResourceNotFoundException("Item not found in cart");
+        }
+    }
+
+    private void updateLine(Cart cart, String name, int quantity) {
+        CartItem line = cart.getLine(itemService.getItemByName(name).getItemId());
+        if (line != null) {
+            Money previousTotal = CartItem.lineTotal(line);
+            line.setQuantity(quantity);
+            line.setPrice(Money.of(line.getItem().getPrice()));
+            line.setTotalPrice();
+            cart.addToTotal(CartItem.lineTotal(line).minus(previousTotal));
+        }
+    }
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     @Override
     public void addItemAndInitialize(Long cartId, String name, Integer quantity) {
@@ -1,12 +1,17 @@
 package pl.projekt.sklep.service;
 
 import jakarta.transaction.Transactional;
+import pl.projekt.sklep.dto.CartDto;
+import pl.projekt.sklep.dto.CartOperationDto;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 
+import java.util.List;
+
 public interface CartItemServiceInterface {
     @Transactional
     void addItemToCart(Long cartId, String name, int quantity) throws ResourceNotFoundException;
     void removeItemFromCart(Long cartId, String name) throws ResourceNotFoundException;
     void updateItemQuantity(Long cartId, String name, int quantity) throws ResourceNotFoundException;
     void addItemAndInitialize(Long cartId, String name, Integer quantity);
+    CartDto applyOperations(Long cartId, List<CartOperationDto> operations) throws ResourceNotFoundException;
 }
\ No newline at end of file
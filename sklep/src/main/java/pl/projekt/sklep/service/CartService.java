@@ -1,9 +1,12 @@
 package pl.projekt.sklep.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.projekt.sklep.cache.CartDtoCache;
+import pl.projekt.sklep.cache.ItemVersions;
+import pl.projekt.sklep.cart.CartPartitioned;
+import pl.projekt.sklep.cart.CartStore;
 import pl.projekt.sklep.dto.CartDto;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 import pl.projekt.sklep.mapper.CartMapper;
@@ -11,94 +14,130 @@ import pl.projekt.sklep.model.Cart;
 import pl.projekt.sklep.model.CartItem;
 import pl.projekt.sklep.repository.CartItemRepository;
 import pl.projekt.sklep.repository.CartRepository;
+import pl.projekt.sklep.retry.RetryOnConflict;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 
 @RequiredArgsConstructor
 @Service
 public class CartService implements CartServiceInterface {
+    private static final int CLEAR_CHUNK_SIZE = 1000;
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final CartMapper cartMapper;
+    private final CartStore cartStore;
+    private final CartDtoCache cartDtoCache;
+    private final ItemVersions itemVersions;
 
+    @CartPartitioned
     @Transactional
     @Override
     public Cart getCart(Long cartId) {
+        if (cartStore.isEnabled()) {
+            return cartStore.read(cartId, cart -> cart);
+        }
         return cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
     }
 
+    @CartPartitioned
     @Transactional
     @Override
     public CartDto getCartDto(Long cartId) {
+        if (cartStore.isEnabled()) {
+            return cartStore.read(cartId, cartMapper::toDto);
+        }
+        // a version probe instead of the whole cart; unchanged carts skip the load and the mapping
+        Long version = cartRepository.findVersionById(cartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        CartDto cached = cartDtoCache.get(cartId, version);
+        if (cached != null) {
+            return cached;
+        }
+        // read before the load, so an item change landing while the cart is mapped keeps it out of the cache
+        long changes = itemVersions.changes();
         Cart cart = getCart(cartId);
-        return cartMapper.toDto(cart);
+        CartDto cartDto = cartMapper.toDto(cart);
+        cartDtoCache.put(cartId, cart.getVersion(), changes, cartDto);
+        return cartDto;
     }
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     @Override
     public void clearCart(Long cartId) {
-        Cart cart = getCart(cartId);
-        cartItemRepository.deleteAllById(cartId);
-        cart.getItems().clear();
-        cartRepository.deleteById(cartId);
+        if (clearCarts(List.of(cartId)) == 0) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+    }
+
+    // two statements per chunk whatever the number of lines, nothing is loaded into the persistence context
+    @Transactional
+    @Override
+    public int clearCarts(Collection<Long> cartIds) {
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(cartIds));
+        int cleared = 0;
+        for (int from = 0; from < ids.size(); from += CLEAR_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CLEAR_CHUNK_SIZE, ids.size()));
+            chunk.forEach(cartStore::discard);
+            cartItemRepository.deleteByCartIds(chunk);
+            cleared += cartRepository.deleteByCartIds(chunk);
+        }
+        return cleared;
     }
 
+    @CartPartitioned
     @Override
     public BigDecimal getTotalPrice(Long cartId) {
         Cart cart = getCart(cartId);
-        return cart.getTotalAmount();
+        return cart.getTotalAmount().toBigDecimal();
     }
 
 
     @Override
     public Long initializeNewCart() {
-        int retries = 3;
-        while (retries > 0) {
-            try {
-                Cart newCart = new Cart();
-                return cartRepository.save(newCart).getCartId();
-            } catch (ObjectOptimisticLockingFailureException e) {
-                retries--;
-                if (retries == 0) {
-                    throw new RuntimeException("Failed to create cart after retries", e);
-                }
-            }
-        }
-        throw new RuntimeException("Failed to create cart");
+        Cart newCart = cartRepository.save(new Cart());
+        cartStore.register(newCart);
+        return newCart.getCartId();
     }
 
+    @CartPartitioned
     @Override
     public Cart getCartByCartId(Long cartId) {
         return cartRepository.findById(cartId)
                 .orElse(null); // Or throw exception if null is not acceptable
     }
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     public void addItem(Long cartId, CartItem item) {
+        if (cartStore.isEnabled()) {
+            cartStore.update(cartId, cart -> cart.putLine(item));
+            return;
+        }
         Cart cart = getCart(cartId);
-        cart.getItems().add(item);
-        item.setCart(cart);
-        updateTotalAmount(cart);
+        cart.putLine(item);
         cartRepository.save(cart);
     }
 
+    @CartPartitioned
+    @RetryOnConflict
     @Transactional
     public void removeItem(Long cartId, CartItem item) {
+        if (cartStore.isEnabled()) {
+            cartStore.update(cartId, cart -> cart.removeLine(item.getItemId()));
+            return;
+        }
         Cart cart = getCart(cartId);
-        cart.getItems().remove(item);
-        item.setCart(null);
-        updateTotalAmount(cart);
+        if (cart.removeLine(item.getItemId()) != null) {
+            item.setCart(null);
+        }
         cartRepository.save(cart);
     }
-
-    private void updateTotalAmount(Cart cart) {
-        cart.setTotalAmount(cart.getItems().stream().map(item -> {
-            BigDecimal unitPrice = item.getPrice();
-            if (unitPrice == null) {
-                return BigDecimal.ZERO;
-            }
-            return unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
-        }).reduce(BigDecimal.ZERO, BigDecimal::add));
-    }
 }
\ No newline at end of file
@@ -5,11 +5,13 @@ import pl.projekt.sklep.model.Cart;
 import pl.projekt.sklep.model.CartItem;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 
 public interface CartServiceInterface {
     Cart getCart(Long cartId);
     CartDto getCartDto(Long cartId);
     void clearCart(Long cartId);
+    int clearCarts(Collection<Long> cartIds);
     BigDecimal getTotalPrice(Long cartId);
     Long initializeNewCart();
     Cart getCartByCartId(Long cartId);
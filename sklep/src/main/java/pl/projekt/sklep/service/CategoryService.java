@@ -3,6 +3,11 @@ package pl.projekt.sklep.service;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.CategoryItemsCache;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.cache.ItemNameCache;
+import pl.projekt.sklep.cache.ItemVersions;
 import pl.projekt.sklep.dto.CategoryDto;
 import pl.projekt.sklep.exception.AlreadyExistsException;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
@@ -21,6 +26,11 @@ public class CategoryService implements CategoryServiceInterface {
     private final CategoryRepository categoryRepository;
     private final ItemRepository itemRepository;
     private final CategoryMapper categoryMapper;
+    private final ItemNameCache itemNameCache;
+    private final CategoryItemsCache categoryItemsCache;
+    private final CatalogVersion catalogVersion;
+    private final ItemChangePublisher itemChangePublisher;
+    private final ItemVersions itemVersions;
 
 
     @Override
@@ -44,7 +54,10 @@ public class CategoryService implements CategoryServiceInterface {
             return Optional.of(category)
                     .filter(c -> !categoryRepository.existsByName(c.getName()))
                     .map(categoryRepository::save)
-                    .map(categoryMapper::toDto)
+                    .map(saved -> {
+                        catalogVersion.bump();
+                        return categoryMapper.toDto(saved);
+                    })
                     .orElseThrow(() -> new AlreadyExistsException("Category already exists: " + category.getName()));
         } catch (AlreadyExistsException e) {
             throw new AlreadyExistsException("Failed to add category: " + e.getMessage());
@@ -58,7 +71,12 @@ public class CategoryService implements CategoryServiceInterface {
             return Optional.ofNullable(getCategoryByName(name))
                     .map(oldCategory -> {
                         oldCategory.setName(name);
-                        return categoryRepository.save(oldCategory);
+                        Category saved = categoryRepository.save(oldCategory);
+                        itemNameCache.invalidateAll();
+                        categoryItemsCache.invalidate(name);
+                        itemVersions.bumpAll();
+                        catalogVersion.bump();
+                        return saved;
                     })
                     .map(categoryMapper::toDto)
                     .orElseThrow(() -> new ResourceNotFoundException("Category not found with name: " + name));
@@ -76,9 +94,13 @@ public class CategoryService implements CategoryServiceInterface {
             items.forEach(item -> {
                 item.setCategory(null);
                 itemRepository.save(item);
+                itemChangePublisher.changed(item);
             });
             itemRepository.flush();
             categoryRepository.delete(category);
+            itemNameCache.invalidateAll();
+            categoryItemsCache.invalidate(name);
+            catalogVersion.bump();
         } catch (ResourceNotFoundException e) {
             throw new ResourceNotFoundException("Failed to delete category: " + e.getMessage());
         }
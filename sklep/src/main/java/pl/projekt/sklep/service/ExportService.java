@@ -0,0 +1,176 @@
+package pl.projekt.sklep.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.projekt.sklep.dto.*;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.repository.OrderRepository;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Streams the catalog and the order history straight from a forward-only
+ * cursor to the response. Rows are read as constructor projections, so no
+ * entities pile up in the persistence context however large the tables are.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService implements ExportServiceInterface {
+    private static final int FLUSH_EVERY = 1000;
+
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportItems(OutputStream out, DataFormat format) throws IOException {
+        try (Stream<ItemExportRow> rows = itemRepository.streamForExport()) {
+            if (format == DataFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writer.write("itemId,name,price,inventory,description,category\n");
+                long count = 0;
+                for (Iterator<ItemExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    ItemExportRow row = it.next();
+                    writeCsvLine(writer, row.itemId(), row.name(), row.price(), row.inventory(), row.description(), row.categoryName());
+                    if (++count % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } else {
+                JsonGenerator generator = ndjsonGenerator(out);
+                long count = 0;
+                for (Iterator<ItemExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    writeJsonLine(generator, toItemDto(it.next()));
+                    if (++count % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.flush();
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportOrders(OutputStream out, DataFormat format) throws IOException {
+        try (Stream<OrderLineExportRow> rows = orderRepository.streamLinesForExport()) {
+            if (format == DataFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writer.write("orderId,orderDate,status,totalAmount,itemId,productName,quantity,price\n");
+                long count = 0;
+                for (Iterator<OrderLineExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    OrderLineExportRow row = it.next();
+                    writeCsvLine(writer, row.orderId(), row.orderDate(), row.status(), row.totalAmount(),
+                            row.itemId(), row.productName(), row.quantity(), row.price());
+                    if (++count % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } else {
+                // rows arrive ordered by order id, so only the order being assembled is held in memory
+                JsonGenerator generator = ndjsonGenerator(out);
+                OrderDto current = null;
+                long count = 0;
+                for (Iterator<OrderLineExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    OrderLineExportRow row = it.next();
+                    if (current == null || !Objects.equals(current.getOrderId(), row.orderId())) {
+                        if (current != null) {
+                            writeJsonLine(generator, current);
+                        }
+                        current = toOrderDto(row);
+                    }
+                    if (row.itemId() != null) {
+                        current.getItems().add(toOrderItemDto(row));
+                    }
+                    if (++count % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                if (current != null) {
+                    writeJsonLine(generator, current);
+                }
+                generator.flush();
+            }
+        }
+    }
+
+    private JsonGenerator ndjsonGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void writeJsonLine(JsonGenerator generator, Object value) throws IOException {
+        objectMapper.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static ItemDto toItemDto(ItemExportRow row) {
+        ItemDto item = new ItemDto();
+        item.setItemId(row.itemId());
+        item.setName(row.name());
+        item.setPrice(row.price());
+        item.setInventory(row.inventory());
+        item.setDescription(row.description());
+        if (row.categoryId() != null) {
+            CategoryDto category = new CategoryDto();
+            category.setId(row.categoryId());
+            category.setName(row.categoryName());
+            item.setCategory(category);
+        }
+        return item;
+    }
+
+    private static OrderDto toOrderDto(OrderLineExportRow row) {
+        OrderDto order = new OrderDto();
+        order.setOrderId(row.orderId());
+        order.setOrderDate(row.orderDate());
+        order.setTotalAmount(row.totalAmount());
+        order.setStatus(row.status() == null ? null : row.status().name());
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+
+    private static OrderItemDto toOrderItemDto(OrderLineExportRow row) {
+        OrderItemDto item = new OrderItemDto();
+        item.setItemId(row.itemId());
+        item.setProductName(row.productName());
+        item.setQuantity(row.quantity() == null ? 0 : row.quantity());
+        item.setPrice(row.price());
+        return item;
+    }
+}
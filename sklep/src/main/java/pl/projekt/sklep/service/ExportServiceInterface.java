@@ -0,0 +1,11 @@
+package pl.projekt.sklep.service;
+
+import pl.projekt.sklep.dto.DataFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportServiceInterface {
+    void exportItems(OutputStream out, DataFormat format) throws IOException;
+    void exportOrders(OutputStream out, DataFormat format) throws IOException;
+}
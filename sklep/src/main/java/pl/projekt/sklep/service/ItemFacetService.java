@@ -0,0 +1,74 @@
+package pl.projekt.sklep.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.ItemFacetsCache;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+import pl.projekt.sklep.dto.PriceBucketDto;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.snapshot.CatalogSnapshot;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ItemFacetService implements ItemFacetServiceInterface {
+    // prices are stored with two decimals, a finer bucket only adds empty ones
+    private static final BigDecimal MIN_BUCKET_WIDTH = new BigDecimal("0.01");
+
+    private final ItemRepository itemRepository;
+    private final ItemFacetsCache itemFacetsCache;
+    private final CatalogSnapshot catalogSnapshot;
+
+    @Value("${shop.facets.price-bucket-width:100}")
+    private BigDecimal defaultBucketWidth;
+    @Value("${shop.facets.max-buckets:1000}")
+    private int maxBuckets;
+
+    @Transactional(readOnly = true)
+    @Override
+    public ItemFacetsDto getFacets(String category, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal bucketWidth) {
+        BigDecimal width = bucketWidth == null ? defaultBucketWidth : bucketWidth;
+        if (width.compareTo(MIN_BUCKET_WIDTH) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bucket width must be at least " + MIN_BUCKET_WIDTH);
+        }
+        if (catalogSnapshot.isActive()) {
+            // a scan of the columns is cheap enough to skip the cache
+            ItemFacetsDto facets = catalogSnapshot.facets(category, minPrice, maxPrice, width, maxBuckets);
+            if (facets != null) {
+                return facets;
+            }
+        }
+        return itemFacetsCache.get(category, minPrice, maxPrice, width, () -> {
+            Object[] totals = itemRepository.countTotalAndInStock(category, minPrice, maxPrice).get(0);
+            // one row per non-empty bucket, so more rows than buckets allowed already settles it
+            List<Object[]> rows = itemRepository.priceHistogram(category, width, PageRequest.of(0, maxBuckets + 1));
+            if (!rows.isEmpty() && (rows.size() > maxBuckets
+                    || bucket(rows.get(rows.size() - 1)).subtract(bucket(rows.get(0))).compareTo(BigDecimal.valueOf(maxBuckets)) >= 0)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Price histogram needs more than " + maxBuckets + " buckets, use a wider bucket");
+            }
+            List<PriceBucketDto> histogram = rows.stream()
+                    .map(row -> {
+                        BigDecimal from = bucket(row).multiply(width);
+                        return new PriceBucketDto(from, from.add(width), ((Number) row[1]).longValue());
+                    })
+                    .toList();
+            return new ItemFacetsDto(
+                    ((Number) totals[0]).longValue(),
+                    ((Number) totals[1]).longValue(),
+                    itemRepository.countByCategory(minPrice, maxPrice),
+                    histogram);
+        });
+    }
+
+    private static BigDecimal bucket(Object[] row) {
+        return new BigDecimal(row[0].toString());
+    }
+}
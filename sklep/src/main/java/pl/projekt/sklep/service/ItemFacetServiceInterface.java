@@ -0,0 +1,9 @@
+package pl.projekt.sklep.service;
+
+import pl.projekt.sklep.dto.ItemFacetsDto;
+
+import java.math.BigDecimal;
+
+public interface ItemFacetServiceInterface {
+    ItemFacetsDto getFacets(String category, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal bucketWidth);
+}
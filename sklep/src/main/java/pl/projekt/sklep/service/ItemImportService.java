@@ -0,0 +1,286 @@
+package pl.projekt.sklep.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.dto.CategoryDto;
+import pl.projekt.sklep.dto.DataFormat;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemImportErrorDto;
+import pl.projekt.sklep.dto.ItemImportResultDto;
+import pl.projekt.sklep.model.Category;
+import pl.projekt.sklep.repository.CategoryRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ItemImportService implements ItemImportServiceInterface {
+    private static final String INSERT_ITEM =
+            "insert into item (name, price, inventory, description, category_id) values (?, ?, ?, ?, ?)";
+    private static final List<String> CSV_COLUMNS = List.of("name", "price", "inventory", "description", "category");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final ItemChangePublisher itemChangePublisher;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${shop.import.batch-size:1000}")
+    private int batchSize;
+    @Value("${shop.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Override
+    public ItemImportResultDto importItems(InputStream body, DataFormat format) throws IOException {
+        ItemImportResultDto result = new ItemImportResultDto(0, 0, new ArrayList<>());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        Map<String, Integer> csvHeader = format == DataFormat.CSV ? readCsvHeader(reader) : null;
+
+        long lineNumber = format == DataFormat.CSV ? 1 : 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ItemDto item = format == DataFormat.CSV ? parseCsv(line, csvHeader) : parseJson(line);
+                validate(item);
+                batch.add(new ImportRow(lineNumber, item));
+            } catch (IllegalArgumentException e) {
+                reportError(result, lineNumber, e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+        return result;
+    }
+
+    // each batch commits on its own so a bad batch does not roll back rows that were already imported
+    private void writeBatch(List<ImportRow> batch, ItemImportResultDto result) {
+        List<ItemDto> written = new ArrayList<>(batch.size());
+        insert(batch, written, result);
+        if (written.isEmpty()) {
+            return;
+        }
+        result.setImported(result.getImported() + written.size());
+        itemChangePublisher.changed(written);
+        catalogVersion.bump();
+    }
+
+    // a rejected batch is retried row by row, so only the rows the database refuses are reported
+    private void insert(List<ImportRow> batch, List<ItemDto> written, ItemImportResultDto result) {
+        try {
+            written.addAll(transactionTemplate.execute(status -> insertBatch(batch)));
+        } catch (DataAccessException e) {
+            if (batch.size() == 1) {
+                reportError(result, batch.get(0).line(), "Rejected by the database: " + e.getMostSpecificCause().getMessage());
+                return;
+            }
+            batch.forEach(row -> insert(List.of(row), written, result));
+        }
+    }
+
+    private List<ItemDto> insertBatch(List<ImportRow> batch) {
+        Map<String, Category> categories = resolveCategories(batch);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_ITEM, new String[]{"item_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        ItemDto item = batch.get(i).item();
+                        statement.setString(1, item.getName());
+                        statement.setBigDecimal(2, item.getPrice());
+                        statement.setInt(3, item.getInventory());
+                        statement.setString(4, item.getDescription());
+                        Category category = item.getCategory() == null ? null : categories.get(item.getCategory().getName());
+                        if (category == null) {
+                            statement.setNull(5, Types.BIGINT);
+                        } else {
+                            statement.setLong(5, category.getId());
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<ItemDto> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ItemDto item = batch.get(i).item();
+            item.setItemId(((Number) generated.get(i).values().iterator().next()).longValue());
+            if (item.getCategory() != null) {
+                Category category = categories.get(item.getCategory().getName());
+                item.getCategory().setId(category.getId());
+            }
+            written.add(item);
+        }
+        return written;
+    }
+
+    // one lookup per batch, missing categories are created once
+    private Map<String, Category> resolveCategories(List<ImportRow> batch) {
+        Set<String> names = batch.stream()
+                .map(ImportRow::item)
+                .map(ItemDto::getCategory)
+                .filter(Objects::nonNull)
+                .map(CategoryDto::getName)
+                .collect(Collectors.toSet());
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Category> categories = new HashMap<>();
+        categoryRepository.findByNameIn(names).forEach(category -> categories.putIfAbsent(category.getName(), category));
+        List<Category> missing = names.stream()
+                .filter(name -> !categories.containsKey(name))
+                .map(name -> new Category(null, name, null))
+                .toList();
+        categoryRepository.saveAll(missing).forEach(category -> categories.put(category.getName(), category));
+        return categories;
+    }
+
+    private ItemDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ItemDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return Map.of();
+        }
+        List<String> columns = splitCsv(header);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            positions.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!positions.containsKey("name")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain the columns " + CSV_COLUMNS);
+        }
+        return positions;
+    }
+
+    private ItemDto parseCsv(String line, Map<String, Integer> header) {
+        List<String> values = splitCsv(line);
+        ItemDto item = new ItemDto();
+        item.setName(column(values, header, "name"));
+        String price = column(values, header, "price");
+        String inventory = column(values, header, "inventory");
+        try {
+            item.setPrice(price == null ? null : new BigDecimal(price));
+            item.setInventory(inventory == null ? 0 : Integer.parseInt(inventory));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in price or inventory");
+        }
+        item.setDescription(column(values, header, "description"));
+        String category = column(values, header, "category");
+        if (category != null) {
+            CategoryDto categoryDto = new CategoryDto();
+            categoryDto.setName(category);
+            item.setCategory(categoryDto);
+        }
+        return item;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void validate(ItemDto item) {
+        if (item.getName() == null || item.getName().isBlank()) {
+            throw new IllegalArgumentException("Item name is required");
+        }
+        if (item.getPrice() == null || item.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("Price must be zero or positive");
+        }
+        if (item.getInventory() < 0) {
+            throw new IllegalArgumentException("Inventory cannot be negative");
+        }
+        if (item.getCategory() != null && item.getCategory().getName() == null) {
+            item.setCategory(null);
+        }
+    }
+
+    private void reportError(ItemImportResultDto result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ItemImportErrorDto(line, message));
+        }
+    }
+
+    private record ImportRow(long line, ItemDto item) {
+    }
+}
@@ -0,0 +1,11 @@
+package pl.projekt.sklep.service;
+
+import pl.projekt.sklep.dto.DataFormat;
+import pl.projekt.sklep.dto.ItemImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ItemImportServiceInterface {
+    ItemImportResultDto importItems(InputStream body, DataFormat format) throws IOException;
+}
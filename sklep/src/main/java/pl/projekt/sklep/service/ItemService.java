@@ -2,16 +2,33 @@ package pl.projekt.sklep.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.CategoryItemsCache;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.cache.ItemNameCache;
 import pl.projekt.sklep.dto.CategoryDto;
 import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemPageDto;
+import pl.projekt.sklep.dto.ItemSearchResultDto;
+import pl.projekt.sklep.dto.ItemSort;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 import pl.projekt.sklep.mapper.ItemMapper;
 import pl.projekt.sklep.model.Category;
 import pl.projekt.sklep.model.Item;
 import pl.projekt.sklep.repository.CategoryRepository;
 import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.search.ItemSearchIndex;
+import pl.projekt.sklep.snapshot.CatalogSnapshot;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +38,21 @@ public class ItemService implements ItemServiceInterface {
     private final ItemRepository itemRepository;
     private final CategoryRepository categoryRepository;
     private final ItemMapper itemMapper;
+    private final ItemNameCache itemNameCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final CategoryItemsCache categoryItemsCache;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ItemChangePublisher itemChangePublisher;
+
+    @Value("${shop.catalog.page-size:50}")
+    private int defaultPageSize;
+    @Value("${shop.catalog.max-page-size:500}")
+    private int maxPageSize;
+    @Value("${shop.catalog.unbounded-listing-enabled:false}")
+    private boolean unboundedListingEnabled;
+    @Value("${shop.search.max-result-window:10000}")
+    private int maxSearchWindow;
 
     @Override
     public ItemDto addItem(ItemDto itemDto) throws ResourceNotFoundException {
@@ -35,47 +67,68 @@ public class ItemService implements ItemServiceInterface {
         Item item = itemMapper.toEntity(itemDto);
         item.setCategory(category);
         Item savedItem = itemRepository.save(item);
-        return itemMapper.toDto(savedItem);
+        ItemDto savedDto = itemMapper.toDto(savedItem);
+        itemChangePublisher.changed(savedDto);
+        catalogVersion.bump();
+        return savedDto;
     }
 
     @Override
     public ItemDto getItemDtoByName(String name) throws ResourceNotFoundException {
-        List<Item> items = itemRepository.findByName(name);
-        if (items.isEmpty()) {
-            throw new ResourceNotFoundException("Item not found with name: " + name);
-        }
-        return itemMapper.toDto(items.get(0));
+        return itemMapper.toDto(getItemByName(name));
     }
 
     @Override
     public Item getItemByName(String name) {
-        List<Item> items = itemRepository.findByName(name);
-        if (items.isEmpty()) {
+        Item item = itemNameCache.get(name, this::loadFirstByName);
+        if (item == null) {
             throw new ResourceNotFoundException("Item not found with name: " + name);
         }
-        return items.get(0);
+        return item;
+    }
+
+    private Item loadFirstByName(String name) {
+        List<Item> items = itemRepository.findByName(name);
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    // resolves the name through the cache, then loads the managed entity by primary key
+    private Optional<Item> findManagedByName(String name) {
+        Item cached = itemNameCache.get(name, this::loadFirstByName);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        Optional<Item> item = itemRepository.findById(cached.getItemId());
+        if (item.isEmpty()) {
+            itemNameCache.invalidate(name);
+        }
+        return item;
     }
 
     @Transactional
     @Override
     public String deleteItemByName(String name) throws ResourceNotFoundException {
-        List<Item> items = itemRepository.findByName(name);
-        if (items.isEmpty()) {
-            throw new ResourceNotFoundException("Item not found with name: " + name);
-        }
-        itemRepository.delete(items.get(0));
+        Item item = findManagedByName(name)
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found with name: " + name));
+        itemRepository.delete(item);
+        itemChangePublisher.removed(item);
+        catalogVersion.bump();
         return "Item deleted";
     }
 
     @Override
     public ItemDto updateItem(ItemDto itemDto, String name) throws ResourceNotFoundException {
-        Item updatedItem = itemRepository.findByName(name)
-                .stream()
-                .findFirst()
-                .map(existingItem -> updateExistingItem(existingItem, itemDto))
-                .map(itemRepository::save)
+        Item existingItem = findManagedByName(name)
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found with name: " + name));
-        return itemMapper.toDto(updatedItem);
+        String previousCategory = existingItem.getCategory() == null ? null : existingItem.getCategory().getName();
+        Item updatedItem = itemRepository.save(updateExistingItem(existingItem, itemDto));
+        // the item may have been renamed or moved, so the old name and category are stale as well
+        categoryItemsCache.invalidate(previousCategory);
+        itemNameCache.invalidate(name);
+        ItemDto updatedDto = itemMapper.toDto(updatedItem);
+        itemChangePublisher.changed(updatedDto);
+        catalogVersion.bump();
+        return updatedDto;
     }
 
     private Item updateExistingItem(Item existingItem, ItemDto itemDto) {
@@ -97,19 +150,101 @@ public class ItemService implements ItemServiceInterface {
 
     @Override
     public List<ItemDto> getAllItems() {
+        if (!unboundedListingEnabled) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Unbounded item listing is disabled, use /api/products/page instead");
+        }
+        if (catalogSnapshot.isActive()) {
+            return catalogSnapshot.all();
+        }
         return itemRepository.findAll()
                 .stream()
                 .map(itemMapper::toDto)
                 .toList();
     }
 
+    @Override
+    public ItemPageDto getItemsPage(String cursor, Integer size, ItemSort sort) {
+        ItemSort order = sort == null ? ItemSort.ID : sort;
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        // one extra row tells us whether another page exists without a count query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        String[] position = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor, order);
+
+        long lastId = position == null ? 0L : Long.parseLong(position[1]);
+        List<ItemDto> items = order == ItemSort.ID && catalogSnapshot.isActive()
+                ? catalogSnapshot.pageAfter(lastId, pageSize + 1)
+                : findPage(order, position, lastId, limit).stream().map(itemMapper::toDto).toList();
+
+        boolean hasMore = items.size() > pageSize;
+        List<ItemDto> page = hasMore ? items.subList(0, pageSize) : items;
+        String nextCursor = hasMore ? encodeCursor(order, page.get(page.size() - 1)) : null;
+        return new ItemPageDto(page, nextCursor, hasMore);
+    }
+
+    private List<Item> findPage(ItemSort order, String[] position, long lastId, Pageable limit) {
+        return switch (order) {
+            case ID -> itemRepository.findPageOrderedById(lastId, limit);
+            case PRICE -> position == null
+                    ? itemRepository.findFirstPageOrderedByPrice(limit)
+                    : itemRepository.findPageOrderedByPrice(new BigDecimal(position[2]), lastId, limit);
+            case NAME -> position == null
+                    ? itemRepository.findFirstPageOrderedByName(limit)
+                    : itemRepository.findPageOrderedByName(position[2], lastId, limit);
+        };
+    }
+
+    @Override
+    public ItemSearchResultDto searchItems(String query, int page, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        if (page < 0 || (long) (page + 1) * pageSize > maxSearchWindow) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search results are limited to the first " + maxSearchWindow + " hits");
+        }
+        ItemSearchIndex.SearchHits hits = itemSearchIndex.search(query, page * pageSize, pageSize);
+        return new ItemSearchResultDto(query, hits.total(), page, pageSize, hits.items(), hits.truncated());
+    }
+
+    private String encodeCursor(ItemSort sort, ItemDto last) {
+        String value = switch (sort) {
+            case ID -> "";
+            case PRICE -> last.getPrice().toPlainString();
+            case NAME -> last.getName();
+        };
+        String raw = sort.name() + "|" + last.getItemId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // cursor layout: SORT|lastItemId|lastSortValue
+    private String[] decodeCursor(String cursor, ItemSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            Long.parseLong(parts[1]);
+            if (sort == ItemSort.PRICE) {
+                new BigDecimal(parts[2]);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + e.getMessage());
+        }
+    }
+
     @Override
     public List<ItemDto> getItemsByCategory(String category) throws ResourceNotFoundException {
-        List<Item> items = itemRepository.findByCategoryName(category);
-        if (items.isEmpty()) {
+        List<ItemDto> items = categoryItemsCache.get(category, key -> catalogSnapshot.isActive()
+                ? catalogSnapshot.byCategory(key)
+                : itemRepository.findByCategoryName(key)
+                        .stream()
+                        .map(itemMapper::toDto)
+                        .toList());
+        if (items == null) {
             throw new ResourceNotFoundException("No items found for category: " + category);
         }
-        return items.stream().map(itemMapper::toDto).toList();
+        return items;
     }
 
     @Override
@@ -2,6 +2,9 @@ package pl.projekt.sklep.service;
 
 import org.springframework.dao.DataIntegrityViolationException;
 import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemPageDto;
+import pl.projekt.sklep.dto.ItemSearchResultDto;
+import pl.projekt.sklep.dto.ItemSort;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 import pl.projekt.sklep.model.Item;
 
@@ -13,6 +16,8 @@ public interface ItemServiceInterface {
     String deleteItemByName(String name) throws ResourceNotFoundException, DataIntegrityViolationException;
     ItemDto updateItem(ItemDto itemDto, String name) throws ResourceNotFoundException;
     List<ItemDto> getAllItems();
+    ItemPageDto getItemsPage(String cursor, Integer size, ItemSort sort);
+    ItemSearchResultDto searchItems(String query, int page, Integer size);
     List<ItemDto> getItemsByCategory(String category) throws ResourceNotFoundException;
     List<ItemDto> getItemsByName(String name) throws ResourceNotFoundException;
     Long countItemsByName(String name);
@@ -0,0 +1,156 @@
+package pl.projekt.sklep.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.dto.OrderStatusDto;
+import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.projection.OrderSummaryProjector;
+import pl.projekt.sklep.repository.OrderRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous checkout. A submitted cart is validated and recorded as a
+ * QUEUED order, then placed by a fixed pool of workers fed from a bounded
+ * queue; a full queue refuses new checkouts with 429. A worker runs the same
+ * checkout as the synchronous endpoint and leaves the order PENDING, or
+ * FAILED with the reason. Orders still QUEUED at startup are queued again.
+ */
+@Slf4j
+@Service
+public class OrderQueueService implements OrderQueueServiceInterface {
+    // failure_reason is a default VARCHAR(255) on both the order and its summary
+    static final int MAX_FAILURE_REASON_LENGTH = 255;
+
+    private final OrderServiceInterface orderService;
+    private final CartServiceInterface cartService;
+    private final OrderRepository orderRepository;
+    private final OrderSummaryProjector orderSummaryProjector;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final Counter rejected;
+
+    public OrderQueueService(OrderServiceInterface orderService, CartServiceInterface cartService,
+                             OrderRepository orderRepository, OrderSummaryProjector orderSummaryProjector,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${shop.order.async.workers:4}") int workerCount,
+                             @Value("${shop.order.async.queue-capacity:1000}") int queueCapacity) {
+        this.orderService = orderService;
+        this.cartService = cartService;
+        this.orderRepository = orderRepository;
+        this.orderSummaryProjector = orderSummaryProjector;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "order-worker-" + threads.getAndIncrement()));
+        this.rejected = Counter.builder("shop.order.queue.rejected").register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("shop.order.queue.depth", List.of(), workers.getQueue());
+    }
+
+    @Override
+    public OrderStatusDto submit(Long cartId) {
+        if (workers.getQueue().remainingCapacity() == 0) {
+            throw rejection();
+        }
+        Long orderId = transactionTemplate.execute(status -> {
+            if (cartService.getCart(cartId).getItems().isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+            }
+            Order order = new Order();
+            order.setOrderStatus(OrderStatus.QUEUED);
+            order.setOrderDate(LocalDateTime.now());
+            order.setCartId(cartId);
+            Order saved = orderRepository.save(order);
+            orderSummaryProjector.record(saved);
+            return saved.getOrderId();
+        });
+        try {
+            enqueue(orderId);
+        } catch (RejectedExecutionException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderSummaryProjector.delete(orderId);
+                orderRepository.deleteById(orderId);
+            });
+            throw rejection();
+        }
+        return new OrderStatusDto(orderId, OrderStatus.QUEUED, null);
+    }
+
+    @Override
+    public OrderStatusDto getStatus(Long orderId) {
+        return orderRepository.findStatusById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeQueued() {
+        workers.prestartAllCoreThreads();
+        for (Long orderId : orderRepository.findIdsByStatus(OrderStatus.QUEUED)) {
+            try {
+                workers.getQueue().put(() -> process(orderId));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void enqueue(Long orderId) {
+        workers.execute(() -> process(orderId));
+    }
+
+    private void process(Long orderId) {
+        try {
+            orderService.completeQueuedOrder(orderId);
+        } catch (RuntimeException e) {
+            String reason = failureReason(e);
+            log.info("Queued order {} failed: {}", orderId, reason);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    orderRepository.markFailed(orderId, reason);
+                    orderSummaryProjector.markFailed(orderId, reason);
+                });
+            } catch (RuntimeException markFailure) {
+                // the order stays QUEUED and is tried again on the next start
+                log.warn("Could not mark queued order {} as failed", orderId, markFailure);
+            }
+        }
+    }
+
+    static String failureReason(RuntimeException e) {
+        String message = e.getMessage() == null || e.getMessage().isBlank() ? e.getClass().getName() : e.getMessage();
+        return message.length() <= MAX_FAILURE_REASON_LENGTH ? message : message.substring(0, MAX_FAILURE_REASON_LENGTH);
+    }
+
+    private ResponseStatusException rejection() {
+        rejected.increment();
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Checkout queue is full, please retry");
+    }
+
+    // orders already accepted are finished before the context goes away
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,8 @@
+package pl.projekt.sklep.service;
+
+import pl.projekt.sklep.dto.OrderStatusDto;
+
+public interface OrderQueueServiceInterface {
+    OrderStatusDto submit(Long cartId);
+    OrderStatusDto getStatus(Long orderId);
+}
@@ -1,51 +1,95 @@
 package pl.projekt.sklep.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.cart.CartStore;
 import pl.projekt.sklep.dto.OrderDto;
+import pl.projekt.sklep.dto.OrderPageDto;
+import pl.projekt.sklep.exception.InsufficientStockException;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 import pl.projekt.sklep.mapper.OrderMapper;
 import pl.projekt.sklep.model.*;
+import pl.projekt.sklep.projection.OrderSummaryProjector;
 import pl.projekt.sklep.repository.ItemRepository;
 import pl.projekt.sklep.repository.OrderRepository;
+import pl.projekt.sklep.repository.OrderSummaryRepository;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @Service
 public class OrderService implements OrderServiceInterface {
+    private static final String DECREMENT_STOCK =
+            "update item set inventory = inventory - ? where item_id = ? and inventory >= ?";
+
     private final OrderRepository orderRepository;
     private final ItemRepository productRepository;
     private final CartService cartService;
     private final OrderMapper orderMapper;
+    private final ItemChangePublisher itemChangePublisher;
+    private final CatalogVersion catalogVersion;
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderSummaryProjector orderSummaryProjector;
+
+    @Value("${shop.order.page-size:50}")
+    private int defaultPageSize;
+    @Value("${shop.order.max-page-size:500}")
+    private int maxPageSize;
 
-    public OrderService(OrderRepository orderRepository, ItemRepository productRepository, CartService cartService, OrderMapper orderMapper) {
+    public OrderService(OrderRepository orderRepository, ItemRepository productRepository, CartService cartService, OrderMapper orderMapper,
+                        ItemChangePublisher itemChangePublisher, CatalogVersion catalogVersion, CartStore cartStore, JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager, OrderSummaryRepository orderSummaryRepository,
+                        OrderSummaryProjector orderSummaryProjector) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.cartService = cartService;
         this.orderMapper = orderMapper;
+        this.itemChangePublisher = itemChangePublisher;
+        this.catalogVersion = catalogVersion;
+        this.cartStore = cartStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.orderSummaryProjector = orderSummaryProjector;
     }
 
-    @Transactional
+    // not @Transactional: the checkout commits or rolls back as a whole before its outcome is answered
     @Override
     public HashMap<String, Object> createOrder(Long cartId) {
         HashMap<String, Object> response = new HashMap<>();
         try {
-            Cart cart = cartService.getCartByCartId(cartId);
-            Order order = createOrder();
-            List<OrderItem> orderItemList = createOrderItems(order, cart);
-            order.setOrderItems(new HashSet<>(orderItemList));
-            order.setTotalAmount(calculateTotalAmount(orderItemList));
-            Order savedOrder = orderRepository.save(order);
-            cartService.clearCart(cart.getCartId());
-            OrderDto orderDto = orderMapper.toDto(savedOrder);
+            OrderDto orderDto = transactionTemplate.execute(status -> {
+                Order order = placeOrder(createOrder(), cartId);
+                orderSummaryProjector.record(order);
+                return orderMapper.toDto(order);
+            });
             response.put("status", "success");
             response.put("message", "Order created successfully");
             response.put("data", orderDto);
             response.put("statusCode", 200);
+        } catch (ResourceNotFoundException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("statusCode", 404);
+        } catch (InsufficientStockException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("statusCode", 409);
         } catch (Exception e) {
             response.put("status", "error");
             response.put("message", e.getMessage());
@@ -54,6 +98,73 @@ public class OrderService implements OrderServiceInterface {
         return response;
     }
 
+    // a queued order that is no longer QUEUED was already handled, e.g. re-enqueued after a restart
+    @Transactional
+    @Override
+    public void completeQueuedOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        if (order.getOrderStatus() != OrderStatus.QUEUED) {
+            return;
+        }
+        placeOrder(order, order.getCartId());
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setOrderDate(LocalDateTime.now());
+        orderSummaryProjector.record(order);
+    }
+
+    private Order placeOrder(Order order, Long cartId) {
+        // the in-memory cart store may hold changes the database has not seen yet
+        cartStore.flush(cartId);
+        Cart cart = cartService.getCartByCartId(cartId);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        List<OrderItem> orderItemList = createOrderItems(order, cart);
+        order.getOrderItems().addAll(orderItemList);
+        order.setTotalAmount(calculateTotalAmount(orderItemList));
+        Order savedOrder = orderRepository.save(order);
+        cartService.clearCart(cart.getCartId());
+        // stock goes last, so a hot item's row is locked only for what is left of the commit
+        Map<Long, Integer> inventory = decrementStock(cart);
+        publishStock(cart, inventory);
+        catalogVersion.bumpStock(inventory.containsValue(0));
+        return savedOrder;
+    }
+
+    /**
+     * Takes the stock for every line with guarded updates sent as one batch.
+     * Lines go in item id order so concurrent checkouts lock rows in the same
+     * order; a line that is short fails the whole checkout. Returns the
+     * inventory left per item, which the row locks keep stable until commit.
+     */
+    private Map<Long, Integer> decrementStock(Cart cart) {
+        List<CartItem> lines = cart.getItems().values().stream()
+                .sorted(Comparator.comparing(CartItem::getItemId))
+                .toList();
+        if (lines.isEmpty()) {
+            return Map.of();
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK, lines.stream()
+                .map(line -> new Object[]{line.getQuantity(), line.getItemId(), line.getQuantity()})
+                .toList());
+        List<String> shortItems = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (updated[i] == 0) {
+                shortItems.add(lines.get(i).getItem().getName());
+            }
+        }
+        if (!shortItems.isEmpty()) {
+            throw new InsufficientStockException("Insufficient stock for " + String.join(", ", shortItems));
+        }
+        Map<Long, Integer> inventory = new HashMap<>();
+        String ids = String.join(",", Collections.nCopies(lines.size(), "?"));
+        jdbcTemplate.query("select item_id, inventory from item where item_id in (" + ids + ")",
+                (RowCallbackHandler) row -> inventory.put(row.getLong(1), row.getInt(2)),
+                lines.stream().map(CartItem::getItemId).toArray());
+        return inventory;
+    }
+
     private Order createOrder() {
         Order order = new Order();
         order.setOrderStatus(OrderStatus.PENDING);
@@ -62,24 +173,29 @@ public class OrderService implements OrderServiceInterface {
     }
 
     private List<OrderItem> createOrderItems(Order order, Cart cart) {
-        return cart.getItems().stream().map(cartItem -> {
+        return cart.getItems().values().stream().map(cartItem -> new OrderItem(
+                order,
+                cartItem.getItem(),
+                cartItem.getQuantity(),
+                cartItem.getPrice())).toList();
+    }
+
+    // the managed items keep their stale inventory and are never flushed, readers get copies with the new stock
+    private void publishStock(Cart cart, Map<Long, Integer> inventory) {
+        for (CartItem cartItem : cart.getItems().values()) {
             Item product = cartItem.getItem();
-            product.setInventory(product.getInventory() - cartItem.getQuantity());
-            productRepository.save(product);
-            return new OrderItem(
-                    order,
-                    product,
-                    cartItem.getQuantity(),
-                    cartItem.getPrice());
-        }).toList();
+            Item updated = new Item(product.getItemId(), product.getName(), product.getPrice(),
+                    inventory.get(product.getItemId()), product.getDescription(), product.getCategory());
+            itemChangePublisher.changed(updated);
+        }
     }
 
-    private BigDecimal calculateTotalAmount(List<OrderItem> orderItemList) {
-        return orderItemList
-                .stream()
-                .map(item -> item.getPrice()
-                        .multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Money calculateTotalAmount(List<OrderItem> orderItemList) {
+        Money total = Money.ZERO;
+        for (OrderItem item : orderItemList) {
+            total = total.plus(item.getPrice().times(item.getQuantity()));
+        }
+        return total;
     }
 
     @Transactional
@@ -87,7 +203,7 @@ public class OrderService implements OrderServiceInterface {
     public HashMap<String, Object> getOrder(Long orderId) {
         HashMap<String, Object> response = new HashMap<>();
         try {
-            OrderDto order = orderRepository.findById(orderId)
+            OrderDto order = orderSummaryRepository.findById(orderId)
                     .map(orderMapper::toDto)
                     .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
             response.put("status", "success");
@@ -105,11 +221,58 @@ public class OrderService implements OrderServiceInterface {
         return response;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll()
-                .stream()
+    public List<OrderDto> getAllOrders() {
+        return orderSummaryRepository.findAllOrderedById().stream()
+                .map(orderMapper::toDto)
                 .toList();
     }
+
+    /**
+     * Newest orders first, keyed on (orderDate, orderId) and served by one
+     * select on the order summary whatever the number of lines.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public OrderPageDto getOrdersPage(String cursor, Integer size, OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        // one extra row tells us whether another page exists without a count query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<OrderSummary> summaries;
+        if (cursor == null || cursor.isBlank()) {
+            summaries = orderSummaryRepository.findFirstPage(status, from, to, limit);
+        } else {
+            OrderCursor position = decodeCursor(cursor);
+            summaries = orderSummaryRepository.findPageAfter(status, from, to, position.orderDate(), position.orderId(), limit);
+        }
+        boolean hasMore = summaries.size() > pageSize;
+        List<OrderDto> page = (hasMore ? summaries.subList(0, pageSize) : summaries).stream()
+                .map(orderMapper::toDto)
+                .toList();
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new OrderPageDto(page, nextCursor, hasMore);
+    }
+
+    private String encodeCursor(OrderDto last) {
+        String raw = last.getOrderDate() + "|" + last.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // cursor layout: lastOrderDate|lastOrderId
+    private OrderCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + e.getMessage());
+        }
+    }
+
+    private record OrderCursor(LocalDateTime orderDate, Long orderId) {
+    }
 }
\ No newline at end of file
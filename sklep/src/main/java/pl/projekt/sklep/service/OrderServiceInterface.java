@@ -1,12 +1,17 @@
 package pl.projekt.sklep.service;
 
-import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.dto.OrderDto;
+import pl.projekt.sklep.dto.OrderPageDto;
+import pl.projekt.sklep.model.OrderStatus;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 
 public interface OrderServiceInterface {
     HashMap<String, Object> createOrder(Long cartId);
+    void completeQueuedOrder(Long orderId);
     HashMap<String, Object> getOrder(Long orderId);
-    List<Order> getAllOrders();
+    List<OrderDto> getAllOrders();
+    OrderPageDto getOrdersPage(String cursor, Integer size, OrderStatus status, LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package pl.projekt.sklep.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.dto.OrderStatusDto;
+import pl.projekt.sklep.dto.OrderTransitionOutcomeDto;
+import pl.projekt.sklep.dto.OrderTransitionOutcomeDto.Result;
+import pl.projekt.sklep.dto.OrderTransitionRequest;
+import pl.projekt.sklep.dto.OrderTransitionResultDto;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.repository.OrderRepository;
+import pl.projekt.sklep.repository.OrderSummaryRepository;
+
+import java.util.*;
+
+/**
+ * Moves orders between statuses as {@link OrderStatus#canTransitionTo}
+ * allows. The selected orders are locked first, so the outcome reported
+ * per order is the one that commits; then each source status is moved with
+ * one guarded set-based update per chunk of ids, on the orders and on the
+ * order summary alike. Cancelled orders give their stock back with one
+ * update per item, summed over all cancelled lines.
+ */
+@Service
+public class OrderStatusService implements OrderStatusServiceInterface {
+    private static final int CHUNK_SIZE = 1000;
+    private static final String RESTOCK = "update item set inventory = inventory + ? where item_id = ?";
+
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemChangePublisher itemChangePublisher;
+    private final CatalogVersion catalogVersion;
+    private final MeterRegistry meterRegistry;
+    private final int maxOrders;
+
+    public OrderStatusService(OrderRepository orderRepository, OrderSummaryRepository orderSummaryRepository,
+                              ItemRepository itemRepository, JdbcTemplate jdbcTemplate,
+                              ItemChangePublisher itemChangePublisher, CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+                              @Value("${shop.order.transition.max-orders:10000}") int maxOrders) {
+        this.orderRepository = orderRepository;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.itemChangePublisher = itemChangePublisher;
+        this.catalogVersion = catalogVersion;
+        this.meterRegistry = meterRegistry;
+        this.maxOrders = maxOrders;
+    }
+
+    @Transactional
+    @Override
+    public OrderTransitionResultDto transition(OrderTransitionRequest request) {
+        OrderStatus target = request.getTargetStatus();
+        if (target == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Target status is required");
+        }
+        boolean byIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        List<Long> requestedIds = byIds ? request.getOrderIds().stream().filter(Objects::nonNull).distinct().toList() : null;
+        List<OrderStatusDto> orders = byIds ? lockByIds(requestedIds, request) : lockByFilter(request);
+
+        Map<Long, OrderStatus> current = new LinkedHashMap<>();
+        orders.forEach(order -> current.put(order.getOrderId(), order.getStatus()));
+        Map<OrderStatus, List<Long>> bySource = new EnumMap<>(OrderStatus.class);
+        List<OrderTransitionOutcomeDto> outcomes = new ArrayList<>();
+        for (Long orderId : byIds ? requestedIds : current.keySet()) {
+            OrderStatus status = current.get(orderId);
+            Result result;
+            if (status == null) {
+                result = Result.NOT_FOUND;
+            } else if (status == target) {
+                result = Result.ALREADY_IN_STATUS;
+            } else if (!status.canTransitionTo(target)) {
+                result = Result.INVALID_TRANSITION;
+            } else {
+                result = Result.TRANSITIONED;
+                bySource.computeIfAbsent(status, source -> new ArrayList<>()).add(orderId);
+            }
+            outcomes.add(new OrderTransitionOutcomeDto(orderId, status, result));
+        }
+
+        int transitioned = 0;
+        for (Map.Entry<OrderStatus, List<Long>> entry : bySource.entrySet()) {
+            OrderStatus source = entry.getKey();
+            for (List<Long> chunk : chunks(entry.getValue())) {
+                int updated = orderRepository.transitionStatus(chunk, source, target);
+                orderSummaryRepository.transitionStatus(chunk, source, target);
+                transitioned += updated;
+            }
+            Counter.builder("shop.order.transitions").tag("from", source.name()).tag("to", target.name())
+                    .register(meterRegistry).increment(entry.getValue().size());
+        }
+        int restockedItems = target == OrderStatus.CANCELLED
+                ? restock(bySource.values().stream().flatMap(List::stream).toList())
+                : 0;
+        return new OrderTransitionResultDto(target, transitioned, restockedItems, outcomes);
+    }
+
+    // ids are locked in ascending order, the same order concurrent bulk calls use
+    private List<OrderStatusDto> lockByIds(List<Long> orderIds, OrderTransitionRequest request) {
+        if (request.getStatus() != null || request.getFrom() != null || request.getTo() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give either order ids or a filter, not both");
+        }
+        if (orderIds.size() > maxOrders) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxOrders + " orders can be transitioned at once");
+        }
+        List<OrderStatusDto> orders = new ArrayList<>();
+        for (List<Long> chunk : chunks(orderIds.stream().sorted().toList())) {
+            orders.addAll(orderRepository.lockStatusesByIds(chunk));
+        }
+        return orders;
+    }
+
+    private List<OrderStatusDto> lockByFilter(OrderTransitionRequest request) {
+        if (request.getStatus() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status filter is required when no order ids are given");
+        }
+        List<OrderStatusDto> orders = orderRepository.lockStatusesByFilter(request.getStatus(), request.getFrom(),
+                request.getTo(), PageRequest.of(0, maxOrders + 1));
+        if (orders.size() > maxOrders) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Filter matches more than " + maxOrders + " orders, narrow it down");
+        }
+        return orders;
+    }
+
+    /**
+     * Returns the stock of the cancelled lines, one update per item in item
+     * id order, and returns how many items changed.
+     */
+    private int restock(List<Long> orderIds) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (List<Long> chunk : chunks(orderIds)) {
+            String ids = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("select item_id, sum(quantity) from order_item " +
+                            "where item_id is not null and order_id in (" + ids + ") group by item_id",
+                    (RowCallbackHandler) row -> quantities.merge(row.getLong(1), row.getInt(2), Integer::sum),
+                    chunk.toArray());
+        }
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(RESTOCK, quantities.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList());
+        List<Item> items = itemRepository.findAllById(quantities.keySet());
+        items.forEach(itemChangePublisher::changed);
+        // an item holding no more than what came back was out of stock before
+        catalogVersion.bumpStock(items.stream().anyMatch(item -> item.getInventory() <= quantities.get(item.getItemId())));
+        return quantities.size();
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
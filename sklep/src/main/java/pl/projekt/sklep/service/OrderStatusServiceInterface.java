@@ -0,0 +1,8 @@
+package pl.projekt.sklep.service;
+
+import pl.projekt.sklep.dto.OrderTransitionRequest;
+import pl.projekt.sklep.dto.OrderTransitionResultDto;
+
+public interface OrderStatusServiceInterface {
+    OrderTransitionResultDto transition(OrderTransitionRequest request);
+}
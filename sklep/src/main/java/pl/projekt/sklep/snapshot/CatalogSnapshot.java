@@ -0,0 +1,554 @@
+package pl.projekt.sklep.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.AfterCommit;
+import pl.projekt.sklep.dto.CategoryDto;
+import pl.projekt.sklep.dto.FacetCountDto;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemExportRow;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+import pl.projekt.sklep.dto.PriceBucketDto;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read-only copy of the catalog kept as columns of primitive arrays, split
+ * into fixed-size chunks and ordered by item id. Readers grab the current
+ * {@link Columns} through a volatile read and never lock; a writer copies
+ * only the chunks it touches and publishes a new instance. Category names
+ * live once in a dictionary and rows point at them by index.
+ * <p>
+ * Writes are applied after the surrounding transaction commits, before the
+ * catalog version moves on, so the snapshot never shows rolled-back data.
+ */
+@Component
+public class CatalogSnapshot {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int PRICE_SCALE = 2;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_CATEGORY = -1;
+    private static final int REMOVED = -2;
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Object writeLock = new Object();
+
+    private volatile Columns current = Columns.EMPTY;
+    private volatile boolean loaded;
+    // writes that commit while the initial load is still streaming, replayed on top of it
+    private List<Consumer<Editor>> pending = new ArrayList<>();
+
+    public CatalogSnapshot(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+                           @Value("${shop.catalog.read-mode:database}") String readMode) {
+        this.itemRepository = itemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = "snapshot".equalsIgnoreCase(readMode);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Editor editor = new Editor(Columns.EMPTY);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ItemExportRow> rows = itemRepository.streamForExport()) {
+                rows.forEach(row -> editor.put(row.itemId(), row.name(), row.price(), row.inventory(),
+                        row.description(), row.categoryId(), row.categoryName()));
+            }
+        });
+        synchronized (writeLock) {
+            pending.forEach(write -> write.accept(editor));
+            pending = null;
+            current = editor.build();
+            loaded = true;
+        }
+    }
+
+    /**
+     * True once the snapshot is enabled and loaded; until then callers read from the database.
+     */
+    public boolean isActive() {
+        return loaded;
+    }
+
+    public int size() {
+        return current.live;
+    }
+
+    public void upsert(Item item) {
+        Long categoryId = item.getCategory() == null ? null : item.getCategory().getId();
+        String categoryName = item.getCategory() == null ? null : item.getCategory().getName();
+        upsert(item.getItemId(), item.getName(), item.getPrice(), item.getInventory(), item.getDescription(),
+                categoryId, categoryName);
+    }
+
+    public void upsert(ItemDto item) {
+        CategoryDto category = item.getCategory();
+        upsert(item.getItemId(), item.getName(), item.getPrice(), item.getInventory(), item.getDescription(),
+                category == null ? null : category.getId(), category == null ? null : category.getName());
+    }
+
+    private void upsert(Long itemId, String name, BigDecimal price, int inventory, String description,
+                        Long categoryId, String categoryName) {
+        if (itemId == null) {
+            return;
+        }
+        // values are captured now, the entity may change again before the commit
+        write(editor -> editor.put(itemId, name, price, inventory, description, categoryId, categoryName));
+    }
+
+    public void remove(Long itemId) {
+        if (itemId != null) {
+            write(editor -> editor.remove(itemId));
+        }
+    }
+
+    private void write(Consumer<Editor> change) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> apply(change));
+    }
+
+    private void apply(Consumer<Editor> change) {
+        synchronized (writeLock) {
+            if (!loaded) {
+                pending.add(change);
+                return;
+            }
+            Editor editor = new Editor(current);
+            change.accept(editor);
+            current = editor.build();
+        }
+    }
+
+    public List<ItemDto> all() {
+        Columns columns = current;
+        List<ItemDto> items = new ArrayList<>(columns.live);
+        for (int slot = 0; slot < columns.size; slot++) {
+            if (columns.category(slot) != REMOVED) {
+                items.add(columns.toDto(slot));
+            }
+        }
+        return items;
+    }
+
+    public List<ItemDto> byCategory(String category) {
+        Columns columns = current;
+        Integer code = columns.codesByName.get(category);
+        if (code == null) {
+            return List.of();
+        }
+        List<ItemDto> items = new ArrayList<>();
+        for (int chunk = 0; chunk * CHUNK_SIZE < columns.size; chunk++) {
+            int[] categories = columns.categories[chunk];
+            int end = Math.min(CHUNK_SIZE, columns.size - chunk * CHUNK_SIZE);
+            for (int i = 0; i < end; i++) {
+                if (categories[i] == code) {
+                    items.add(columns.toDto((chunk << CHUNK_SHIFT) | i));
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Up to {@code limit} live items with an id greater than {@code lastId}, in id order.
+     */
+    public List<ItemDto> pageAfter(long lastId, int limit) {
+        Columns columns = current;
+        List<ItemDto> items = new ArrayList<>(Math.min(limit, columns.live));
+        for (int slot = columns.firstSlotAfter(lastId); slot < columns.size && items.size() < limit; slot++) {
+            if (columns.category(slot) != REMOVED) {
+                items.add(columns.toDto(slot));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Same counts as the facet queries, computed in one pass over the columns.
+     * Returns null when the bucket width is not a whole number of minor units;
+     * the caller then asks the database. A histogram spanning more than
+     * {@code maxBuckets} buckets is rejected.
+     */
+    public ItemFacetsDto facets(String category, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal bucketWidth,
+                                int maxBuckets) {
+        BigDecimal widthMinor = bucketWidth.movePointRight(PRICE_SCALE);
+        if (widthMinor.stripTrailingZeros().scale() > 0) {
+            return null;
+        }
+        long width = widthMinor.longValueExact();
+        // prices are whole minor units, so rounding the bounds inwards keeps the comparison exact
+        long min = minPrice == null ? Long.MIN_VALUE
+                : minPrice.movePointRight(PRICE_SCALE).setScale(0, RoundingMode.CEILING).longValue();
+        long max = maxPrice == null ? Long.MAX_VALUE
+                : maxPrice.movePointRight(PRICE_SCALE).setScale(0, RoundingMode.FLOOR).longValue();
+        boolean priceFiltered = minPrice != null || maxPrice != null;
+
+        Columns columns = current;
+        Integer code = category == null ? null : columns.codesByName.get(category);
+        int wanted = category == null ? NO_CATEGORY : code == null ? REMOVED : code;
+        long[] perCategory = new long[columns.categoryDtos.length + 1];
+        // bucket counts indexed from the lowest bucket seen so far, grown on demand
+        long[] buckets = new long[0];
+        long firstBucket = 0;
+        long total = 0;
+        long inStock = 0;
+        for (int chunk = 0; chunk * CHUNK_SIZE < columns.size; chunk++) {
+            int[] categories = columns.categories[chunk];
+            long[] prices = columns.prices[chunk];
+            int[] inventory = columns.inventory[chunk];
+            int end = Math.min(CHUNK_SIZE, columns.size - chunk * CHUNK_SIZE);
+            for (int i = 0; i < end; i++) {
+                int itemCategory = categories[i];
+                if (itemCategory == REMOVED) {
+                    continue;
+                }
+                long price = prices[i];
+                boolean categoryMatch = category == null || itemCategory == wanted;
+                boolean priceMatch = !priceFiltered || (price != NO_PRICE && price >= min && price <= max);
+                if (priceMatch) {
+                    perCategory[itemCategory + 1]++;
+                }
+                if (categoryMatch && price != NO_PRICE) {
+                    long bucket = Math.floorDiv(price, width);
+                    if (buckets.length == 0) {
+                        buckets = new long[Math.min(16, maxBuckets)];
+                        firstBucket = bucket;
+                    } else if (bucket < firstBucket || bucket - firstBucket >= buckets.length) {
+                        long from = Math.min(firstBucket, bucket);
+                        long span = Math.max(firstBucket + buckets.length, bucket + 1) - from;
+                        if (span > maxBuckets) {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    "Price histogram needs more than " + maxBuckets + " buckets, use a wider bucket");
+                        }
+                        long[] grown = new long[(int) Math.min(maxBuckets, Math.max(span, buckets.length * 2L))];
+                        System.arraycopy(buckets, 0, grown, (int) (firstBucket - from), buckets.length);
+                        buckets = grown;
+                        firstBucket = from;
+                    }
+                    buckets[(int) (bucket - firstBucket)]++;
+                }
+                if (categoryMatch && priceMatch) {
+                    total++;
+                    if (inventory[i] > 0) {
+                        inStock++;
+                    }
+                }
+            }
+        }
+
+        // grouped by name like the query, a re-created category may have left an older code behind
+        Map<String, Long> countsByName = new HashMap<>();
+        for (int i = 0; i < perCategory.length; i++) {
+            if (perCategory[i] > 0) {
+                String name = i == 0 ? null : columns.categoryDtos[i - 1].getName();
+                countsByName.merge(name, perCategory[i], Long::sum);
+            }
+        }
+        List<FacetCountDto> categoryCounts = new ArrayList<>(countsByName.size());
+        countsByName.forEach((name, count) -> categoryCounts.add(new FacetCountDto(name, count)));
+        categoryCounts.sort(Comparator.comparingLong(FacetCountDto::getCount).reversed()
+                .thenComparing(FacetCountDto::getValue, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<PriceBucketDto> histogram = new ArrayList<>();
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                BigDecimal from = BigDecimal.valueOf(firstBucket + i).multiply(bucketWidth);
+                histogram.add(new PriceBucketDto(from, from.add(bucketWidth), buckets[i]));
+            }
+        }
+        return new ItemFacetsDto(total, inStock, categoryCounts, histogram);
+    }
+
+    /**
+     * One published version of the catalog. Never modified after {@link Editor#build()}.
+     */
+    private static final class Columns {
+        static final Columns EMPTY = new Columns(new long[0][], new long[0][], new int[0][], new int[0][],
+                new String[0][], new String[0][], 0, 0, new CategoryDto[0], Map.of(), Map.of());
+
+        final long[][] ids;
+        final long[][] prices;
+        final int[][] inventory;
+        final int[][] categories;
+        final String[][] names;
+        final String[][] descriptions;
+        final int size;
+        final int live;
+        final CategoryDto[] categoryDtos;
+        final Map<Long, Integer> codesById;
+        final Map<String, Integer> codesByName;
+
+        Columns(long[][] ids, long[][] prices, int[][] inventory, int[][] categories, String[][] names,
+                String[][] descriptions, int size, int live, CategoryDto[] categoryDtos,
+                Map<Long, Integer> codesById, Map<String, Integer> codesByName) {
+            this.ids = ids;
+            this.prices = prices;
+            this.inventory = inventory;
+            this.categories = categories;
+            this.names = names;
+            this.descriptions = descriptions;
+            this.size = size;
+            this.live = live;
+            this.categoryDtos = categoryDtos;
+            this.codesById = codesById;
+            this.codesByName = codesByName;
+        }
+
+        long id(int slot) {
+            return ids[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        int category(int slot) {
+            return categories[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        // ids are kept sorted, removed slots keep their id so the search still works
+        int firstSlotAfter(long itemId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (id(mid) <= itemId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        ItemDto toDto(int slot) {
+            int chunk = slot >>> CHUNK_SHIFT;
+            int i = slot & CHUNK_MASK;
+            ItemDto item = new ItemDto();
+            item.setItemId(ids[chunk][i]);
+            item.setName(names[chunk][i]);
+            long price = prices[chunk][i];
+            item.setPrice(price == NO_PRICE ? null : BigDecimal.valueOf(price, PRICE_SCALE));
+            item.setInventory(inventory[chunk][i]);
+            item.setDescription(descriptions[chunk][i]);
+            int category = categories[chunk][i];
+            item.setCategory(category == NO_CATEGORY ? null : categoryDtos[category]);
+            return item;
+        }
+    }
+
+    /**
+     * Builds the next {@link Columns} from a published one, copying a chunk
+     * the first time it is written and sharing all the others.
+     */
+    private static final class Editor {
+        private long[][] ids;
+        private long[][] prices;
+        private int[][] inventory;
+        private int[][] categories;
+        private String[][] names;
+        private String[][] descriptions;
+        private final BitSet copied = new BitSet();
+        private int size;
+        private int live;
+        private CategoryDto[] categoryDtos;
+        private Map<Long, Integer> codesById;
+        private Map<String, Integer> codesByName;
+        private boolean dictionaryCopied;
+
+        Editor(Columns base) {
+            int chunks = Math.max(base.ids.length, 1);
+            ids = Arrays.copyOf(base.ids, chunks);
+            prices = Arrays.copyOf(base.prices, chunks);
+            inventory = Arrays.copyOf(base.inventory, chunks);
+            categories = Arrays.copyOf(base.categories, chunks);
+            names = Arrays.copyOf(base.names, chunks);
+            descriptions = Arrays.copyOf(base.descriptions, chunks);
+            size = base.size;
+            live = base.live;
+            categoryDtos = base.categoryDtos;
+            codesById = base.codesById;
+            codesByName = base.codesByName;
+        }
+
+        void put(Long itemId, String name, BigDecimal price, int stock, String description,
+                 Long categoryId, String categoryName) {
+            int slot = find(itemId);
+            if (slot < 0) {
+                slot = insertAt(-slot - 1);
+                live++;
+            } else if (categories[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] == REMOVED) {
+                live++;
+            }
+            int chunk = own(slot >>> CHUNK_SHIFT);
+            int i = slot & CHUNK_MASK;
+            ids[chunk][i] = itemId;
+            // mirrors the numeric(38,2) column the price is stored in
+            prices[chunk][i] = price == null ? NO_PRICE
+                    : price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            inventory[chunk][i] = stock;
+            names[chunk][i] = name;
+            descriptions[chunk][i] = description;
+            categories[chunk][i] = categoryId == null ? NO_CATEGORY : categoryCode(categoryId, categoryName);
+        }
+
+        void remove(Long itemId) {
+            int slot = find(itemId);
+            if (slot < 0 || categories[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] == REMOVED) {
+                return;
+            }
+            int chunk = own(slot >>> CHUNK_SHIFT);
+            int i = slot & CHUNK_MASK;
+            categories[chunk][i] = REMOVED;
+            names[chunk][i] = null;
+            descriptions[chunk][i] = null;
+            live--;
+        }
+
+        Columns build() {
+            if (size - live > Math.max(CHUNK_SIZE, live)) {
+                return compacted();
+            }
+            return new Columns(ids, prices, inventory, categories, names, descriptions, size, live,
+                    categoryDtos, codesById, codesByName);
+        }
+
+        // found: slot index, missing: -(insertion point) - 1
+        private int find(long itemId) {
+            int low = 0;
+            int high = size - 1;
+            if (size > 0 && ids[(size - 1) >>> CHUNK_SHIFT][(size - 1) & CHUNK_MASK] < itemId) {
+                return -size - 1;
+            }
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long id = ids[mid >>> CHUNK_SHIFT][mid & CHUNK_MASK];
+                if (id < itemId) {
+                    low = mid + 1;
+                } else if (id > itemId) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        // new ids almost always land at the end; an out-of-order commit shifts the tail by one
+        private int insertAt(int slot) {
+            ensureCapacity(size + 1);
+            for (int target = size; target > slot; target--) {
+                copySlot(target - 1, target);
+            }
+            size++;
+            return slot;
+        }
+
+        private void copySlot(int from, int to) {
+            int fromChunk = from >>> CHUNK_SHIFT;
+            int fromIndex = from & CHUNK_MASK;
+            int toChunk = own(to >>> CHUNK_SHIFT);
+            int toIndex = to & CHUNK_MASK;
+            ids[toChunk][toIndex] = ids[fromChunk][fromIndex];
+            prices[toChunk][toIndex] = prices[fromChunk][fromIndex];
+            inventory[toChunk][toIndex] = inventory[fromChunk][fromIndex];
+            categories[toChunk][toIndex] = categories[fromChunk][fromIndex];
+            names[toChunk][toIndex] = names[fromChunk][fromIndex];
+            descriptions[toChunk][toIndex] = descriptions[fromChunk][fromIndex];
+        }
+
+        private void ensureCapacity(int slots) {
+            int chunks = (slots + CHUNK_MASK) >>> CHUNK_SHIFT;
+            if (chunks > ids.length) {
+                int length = Math.max(chunks, ids.length * 2);
+                ids = Arrays.copyOf(ids, length);
+                prices = Arrays.copyOf(prices, length);
+                inventory = Arrays.copyOf(inventory, length);
+                categories = Arrays.copyOf(categories, length);
+                names = Arrays.copyOf(names, length);
+                descriptions = Arrays.copyOf(descriptions, length);
+            }
+        }
+
+        // copy-on-write: the first write to a shared chunk replaces it with a private copy
+        private int own(int chunk) {
+            if (!copied.get(chunk)) {
+                ids[chunk] = ids[chunk] == null ? new long[CHUNK_SIZE] : ids[chunk].clone();
+                prices[chunk] = prices[chunk] == null ? new long[CHUNK_SIZE] : prices[chunk].clone();
+                inventory[chunk] = inventory[chunk] == null ? new int[CHUNK_SIZE] : inventory[chunk].clone();
+                categories[chunk] = categories[chunk] == null ? new int[CHUNK_SIZE] : categories[chunk].clone();
+                names[chunk] = names[chunk] == null ? new String[CHUNK_SIZE] : names[chunk].clone();
+                descriptions[chunk] = descriptions[chunk] == null ? new String[CHUNK_SIZE] : descriptions[chunk].clone();
+                copied.set(chunk);
+            }
+            return chunk;
+        }
+
+        private int categoryCode(Long categoryId, String categoryName) {
+            Integer code = codesById.get(categoryId);
+            if (code != null && Objects.equals(categoryDtos[code].getName(), categoryName)) {
+                return code;
+            }
+            if (!dictionaryCopied) {
+                categoryDtos = categoryDtos.clone();
+                codesById = new HashMap<>(codesById);
+                codesByName = new HashMap<>(codesByName);
+                dictionaryCopied = true;
+            }
+            CategoryDto category = new CategoryDto();
+            category.setId(categoryId);
+            category.setName(categoryName);
+            if (code == null) {
+                code = categoryDtos.length;
+                categoryDtos = Arrays.copyOf(categoryDtos, code + 1);
+                codesById.put(categoryId, code);
+            } else {
+                codesByName.remove(categoryDtos[code].getName(), code);
+            }
+            categoryDtos[code] = category;
+            codesByName.put(categoryName, code);
+            return code;
+        }
+
+        private Columns compacted() {
+            Editor fresh = new Editor(Columns.EMPTY);
+            fresh.categoryDtos = categoryDtos;
+            fresh.codesById = codesById;
+            fresh.codesByName = codesByName;
+            for (int slot = 0; slot < size; slot++) {
+                int chunk = slot >>> CHUNK_SHIFT;
+                int i = slot & CHUNK_MASK;
+                if (categories[chunk][i] != REMOVED) {
+                    int target = fresh.insertAt(fresh.size);
+                    int targetChunk = fresh.own(target >>> CHUNK_SHIFT);
+                    int targetIndex = target & CHUNK_MASK;
+                    fresh.ids[targetChunk][targetIndex] = ids[chunk][i];
+                    fresh.prices[targetChunk][targetIndex] = prices[chunk][i];
+                    fresh.inventory[targetChunk][targetIndex] = inventory[chunk][i];
+                    fresh.categories[targetChunk][targetIndex] = categories[chunk][i];
+                    fresh.names[targetChunk][targetIndex] = names[chunk][i];
+                    fresh.descriptions[targetChunk][targetIndex] = descriptions[chunk][i];
+                    fresh.live++;
+                }
+            }
+            return new Columns(fresh.ids, fresh.prices, fresh.inventory, fresh.categories, fresh.names,
+                    fresh.descriptions, fresh.size, fresh.live, categoryDtos, codesById, codesByName);
+        }
+    }
+}
@@ -5,14 +5,26 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import pl.projekt.sklep.controller.CartItemController;
 import pl.projekt.sklep.dto.AddItemToCartRequest;
+import pl.projekt.sklep.dto.CartBatchRequest;
+import pl.projekt.sklep.dto.CartDto;
+import pl.projekt.sklep.dto.CartOperationDto;
+import pl.projekt.sklep.dto.CartOperationType;
 import pl.projekt.sklep.dto.UpdateCartItemQuantityDto;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
 import pl.projekt.sklep.service.CartItemServiceInterface;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class CartItemControllerTest {
 
@@ -122,4 +134,44 @@ class CartItemControllerTest {
         assertEquals("Item not found in cart", exception.getMessage());
         verify(cartItemService, times(1)).updateItemQuantity(request.getCartId(), request.getItemName(), request.getQuantity());
     }
-}
\ No newline at end of file
+
+    @Test
+    void applyOperations_ValidBatch_ReturnsResultingCart() {
+        List<CartOperationDto> operations = List.of(
+                new CartOperationDto(CartOperationType.ADD, "TestItem", 2),
+                new CartOperationDto(CartOperationType.REMOVE, "OtherItem", null));
+        CartBatchRequest request = new CartBatchRequest(1L, operations);
+        CartDto cartDto = new CartDto();
+        cartDto.setCartId(1L);
+        when(cartItemService.applyOperations(1L, operations)).thenReturn(cartDto);
+
+        CartDto result = cartItemController.applyOperations(request);
+
+        assertEquals(cartDto, result);
+        verify(cartItemService, times(1)).applyOperations(1L, operations);
+    }
+
+    @Test
+    void applyOperations_EmptyOperations_ReturnsBadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(cartItemController).build();
+
+        mockMvc.perform(post("/api/cartItems/cart/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cartId\":1,\"operations\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(cartItemService, never()).applyOperations(any(), any());
+    }
+
+    @Test
+    void applyOperations_OperationWithoutType_ReturnsBadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(cartItemController).build();
+
+        mockMvc.perform(post("/api/cartItems/cart/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cartId\":1,\"operations\":[{\"itemName\":\"TestItem\",\"quantity\":2}]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(cartItemService, never()).applyOperations(any(), any());
+    }
+}
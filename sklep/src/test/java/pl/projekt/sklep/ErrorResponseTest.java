@@ -0,0 +1,27 @@
+package pl.projekt.sklep;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs through the servlet container and the security filter chain, so the error dispatch to /error is included
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ErrorResponseTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void invalidCursor_AnonymousClient_ReceivesBadRequest() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/products/page?cursor=garbage", String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().contains("\"status\":400"));
+    }
+}
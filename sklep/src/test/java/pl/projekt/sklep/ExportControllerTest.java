@@ -0,0 +1,58 @@
+package pl.projekt.sklep;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.projekt.sklep.controller.ExportController;
+import pl.projekt.sklep.dto.DataFormat;
+import pl.projekt.sklep.service.ExportServiceInterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExportControllerTest {
+
+    @Mock
+    private ExportServiceInterface exportService;
+
+    @InjectMocks
+    private ExportController exportController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void exportItems_Csv_StreamsThroughService() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = exportController.exportItems(DataFormat.CSV);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.parseMediaType("text/csv"), response.getHeaders().getContentType());
+        verifyNoInteractions(exportService);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(exportService, times(1)).exportItems(out, DataFormat.CSV);
+    }
+
+    @Test
+    void exportOrders_Ndjson_StreamsThroughService() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = exportController.exportOrders(DataFormat.NDJSON);
+
+        assertEquals(MediaType.parseMediaType("application/x-ndjson"), response.getHeaders().getContentType());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(exportService, times(1)).exportOrders(out, DataFormat.NDJSON);
+    }
+}
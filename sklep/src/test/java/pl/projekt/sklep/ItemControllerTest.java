@@ -6,10 +6,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import pl.projekt.sklep.controller.ItemController;
+import pl.projekt.sklep.dto.DataFormat;
 import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+import pl.projekt.sklep.dto.ItemImportResultDto;
+import pl.projekt.sklep.dto.ItemPageDto;
+import pl.projekt.sklep.dto.ItemSearchResultDto;
+import pl.projekt.sklep.dto.ItemSort;
 import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.service.ItemFacetServiceInterface;
+import pl.projekt.sklep.service.ItemImportServiceInterface;
 import pl.projekt.sklep.service.ItemServiceInterface;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,6 +32,12 @@ class ItemControllerTest {
     @Mock
     private ItemServiceInterface itemService;
 
+    @Mock
+    private ItemImportServiceInterface itemImportService;
+
+    @Mock
+    private ItemFacetServiceInterface itemFacetService;
+
     @InjectMocks
     private ItemController itemController;
 
@@ -49,6 +67,18 @@ class ItemControllerTest {
         verify(itemService, times(1)).addItem(itemDto);
     }
 
+    @Test
+    void importItems_CsvBody_ReturnsImportResult() throws IOException {
+        InputStream body = new ByteArrayInputStream("name,price\nLaptop,10".getBytes());
+        ItemImportResultDto importResult = new ItemImportResultDto(1, 0, List.of());
+        when(itemImportService.importItems(body, DataFormat.CSV)).thenReturn(importResult);
+
+        ItemImportResultDto result = itemController.importItems(DataFormat.CSV, body);
+
+        assertEquals(importResult, result);
+        verify(itemImportService, times(1)).importItems(body, DataFormat.CSV);
+    }
+
     @Test
     void getAllItems_ReturnsItemList() {
         List<ItemDto> items = List.of(new ItemDto());
@@ -60,6 +90,40 @@ class ItemControllerTest {
         verify(itemService, times(1)).getAllItems();
     }
 
+    @Test
+    void getItemsPage_WithCursor_ReturnsItemPage() {
+        ItemPageDto page = new ItemPageDto(List.of(new ItemDto()), "next", true);
+        when(itemService.getItemsPage("cursor", 20, ItemSort.PRICE)).thenReturn(page);
+
+        ItemPageDto result = itemController.getItemsPage("cursor", 20, ItemSort.PRICE);
+
+        assertEquals(page, result);
+        verify(itemService, times(1)).getItemsPage("cursor", 20, ItemSort.PRICE);
+    }
+
+    @Test
+    void searchItems_ValidQuery_ReturnsSearchResult() {
+        ItemSearchResultDto searchResult = new ItemSearchResultDto("laptop", 1, 0, 20, List.of(new ItemDto()), false);
+        when(itemService.searchItems("laptop", 0, 20)).thenReturn(searchResult);
+
+        ItemSearchResultDto result = itemController.searchItems("laptop", 0, 20);
+
+        assertEquals(searchResult, result);
+        verify(itemService, times(1)).searchItems("laptop", 0, 20);
+    }
+
+    @Test
+    void getFacets_CategoryFilter_ReturnsFacets() {
+        ItemFacetsDto facets = new ItemFacetsDto(3, 2, List.of(), List.of());
+        BigDecimal width = new BigDecimal("50");
+        when(itemFacetService.getFacets("Electronics", null, null, width)).thenReturn(facets);
+
+        ItemFacetsDto result = itemController.getFacets("Electronics", null, null, width);
+
+        assertEquals(facets, result);
+        verify(itemFacetService, times(1)).getFacets("Electronics", null, null, width);
+    }
+
     @Test
     void getItemByName_ValidName_ReturnsItemDto() {
         String name = "Valid";
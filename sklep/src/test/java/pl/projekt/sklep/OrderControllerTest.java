@@ -8,10 +8,15 @@ import org.mockito.MockitoAnnotations;
 import pl.projekt.sklep.controller.OrderController;
 import pl.projekt.sklep.dto.OrderDto;
 import pl.projekt.sklep.dto.OrderItemDto;
-import pl.projekt.sklep.mapper.OrderMapper;
-import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.dto.OrderPageDto;
+import pl.projekt.sklep.dto.OrderStatusDto;
+import pl.projekt.sklep.dto.OrderTransitionOutcomeDto;
+import pl.projekt.sklep.dto.OrderTransitionRequest;
+import pl.projekt.sklep.dto.OrderTransitionResultDto;
 import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.service.OrderQueueServiceInterface;
 import pl.projekt.sklep.service.OrderServiceInterface;
+import pl.projekt.sklep.service.OrderStatusServiceInterface;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,13 +32,15 @@ class OrderControllerTest {
     private OrderServiceInterface orderService;
 
     @Mock
-    private OrderMapper orderMapper;
+    private OrderQueueServiceInterface orderQueueService;
+
+    @Mock
+    private OrderStatusServiceInterface orderStatusService;
 
     @InjectMocks
     private OrderController orderController;
 
     private OrderDto orderDto;
-    private Order order;
 
     @BeforeEach
     void setUp() {
@@ -52,11 +59,6 @@ class OrderControllerTest {
         orderItemDto.setPrice(new BigDecimal("50"));
         orderDto.setItems(List.of(orderItemDto));
 
-        order = new Order();
-        order.setOrderId(1L);
-        order.setOrderDate(LocalDateTime.now());
-        order.setTotalAmount(new BigDecimal("100"));
-        order.setOrderStatus(OrderStatus.PENDING);
     }
 
     @Test
@@ -103,6 +105,38 @@ class OrderControllerTest {
         verify(orderService, times(1)).createOrder(cartId);
     }
 
+    @Test
+    void queueOrder_ValidCartId_ReturnsQueuedStatus() {
+        // Arrange
+        Long cartId = 1L;
+        OrderStatusDto queued = new OrderStatusDto(7L, OrderStatus.QUEUED, null);
+        when(orderQueueService.submit(cartId)).thenReturn(queued);
+
+        // Act
+        OrderStatusDto result = orderController.queueOrder(cartId);
+
+        // Assert
+        assertEquals(7L, result.getOrderId());
+        assertEquals(OrderStatus.QUEUED, result.getStatus());
+        verify(orderQueueService, times(1)).submit(cartId);
+    }
+
+    @Test
+    void getOrderStatus_FailedOrder_ReturnsReason() {
+        // Arrange
+        Long orderId = 7L;
+        OrderStatusDto failed = new OrderStatusDto(orderId, OrderStatus.FAILED, "Insufficient stock for Item1");
+        when(orderQueueService.getStatus(orderId)).thenReturn(failed);
+
+        // Act
+        OrderStatusDto result = orderController.getOrderStatus(orderId);
+
+        // Assert
+        assertEquals(OrderStatus.FAILED, result.getStatus());
+        assertEquals("Insufficient stock for Item1", result.getMessage());
+        verify(orderQueueService, times(1)).getStatus(orderId);
+    }
+
     @Test
     void getOrderByOrderId_ValidId_ReturnsOrderResponse() {
         // Arrange
@@ -148,10 +182,8 @@ class OrderControllerTest {
     @Test
     void getAllOrders_ReturnsOrdersList() {
         // Arrange
-        List<Order> orders = List.of(order);
         List<OrderDto> orderDtos = List.of(orderDto);
-        when(orderService.getAllOrders()).thenReturn(orders);
-        when(orderMapper.toDto(order)).thenReturn(orderDto);
+        when(orderService.getAllOrders()).thenReturn(orderDtos);
 
         // Act
         List<OrderDto> result = orderController.getAllOrders();
@@ -161,6 +193,42 @@ class OrderControllerTest {
         assertEquals(1, result.size());
         assertEquals(orderDto, result.get(0));
         verify(orderService, times(1)).getAllOrders();
-        verify(orderMapper, times(1)).toDto(order);
+    }
+
+    @Test
+    void getOrdersPage_ForwardsFiltersAndReturnsPage() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 1, 0, 0);
+        OrderPageDto page = new OrderPageDto(List.of(orderDto), "next", true);
+        when(orderService.getOrdersPage("cursor", 20, OrderStatus.PENDING, from, to)).thenReturn(page);
+
+        // Act
+        OrderPageDto result = orderController.getOrdersPage("cursor", 20, OrderStatus.PENDING, from, to);
+
+        // Assert
+        assertEquals(page, result);
+        assertEquals(List.of(orderDto), result.getOrders());
+        assertTrue(result.isHasMore());
+        verify(orderService, times(1)).getOrdersPage("cursor", 20, OrderStatus.PENDING, from, to);
+    }
+
+    @Test
+    void transitionOrders_ReturnsOutcomePerOrder() {
+        // Arrange
+        OrderTransitionRequest request = new OrderTransitionRequest(OrderStatus.CANCELLED, List.of(1L, 2L), null, null, null);
+        OrderTransitionResultDto response = new OrderTransitionResultDto(OrderStatus.CANCELLED, 1, 1, List.of(
+                new OrderTransitionOutcomeDto(1L, OrderStatus.PENDING, OrderTransitionOutcomeDto.Result.TRANSITIONED),
+                new OrderTransitionOutcomeDto(2L, null, OrderTransitionOutcomeDto.Result.NOT_FOUND)));
+        when(orderStatusService.transition(request)).thenReturn(response);
+
+        // Act
+        OrderTransitionResultDto result = orderController.transitionOrders(request);
+
+        // Assert
+        assertEquals(response, result);
+        assertEquals(1, result.getTransitioned());
+        assertEquals(OrderTransitionOutcomeDto.Result.NOT_FOUND, result.getOutcomes().get(1).getResult());
+        verify(orderStatusService, times(1)).transition(request);
     }
 }
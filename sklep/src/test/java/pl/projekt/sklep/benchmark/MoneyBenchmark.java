@@ -0,0 +1,92 @@
+package pl.projekt.sklep.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.projekt.sklep.model.Money;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart total arithmetic on {@link Money} against the BigDecimal chains it
+ * replaced: line totals as price times quantity, summed over a cart, and the
+ * incremental total update done on every quantity change.
+ * <p>
+ * Run with {@code mvn test-compile} followed by
+ * {@code java -cp target/test-classes:target/classes:<test classpath> pl.projekt.sklep.benchmark.MoneyBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"10", "1000"})
+    int lines;
+
+    BigDecimal[] decimalPrices;
+    Money[] moneyPrices;
+    int[] quantities;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2);
+            moneyPrices[i] = Money.of(decimalPrices[i]);
+            quantities[i] = random.nextInt(1, 20);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal cartTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(decimalPrices[i].multiply(new BigDecimal(quantities[i])));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money cartTotalMoney() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal quantityChangeBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal previous = decimalPrices[i].multiply(new BigDecimal(quantities[i]));
+            BigDecimal next = decimalPrices[i].multiply(new BigDecimal(quantities[i] + 1));
+            total = total.add(next.subtract(previous));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money quantityChangeMoney() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            Money previous = moneyPrices[i].times(quantities[i]);
+            Money next = moneyPrices[i].times(quantities[i] + 1);
+            total = total.plus(next.minus(previous));
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoneyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
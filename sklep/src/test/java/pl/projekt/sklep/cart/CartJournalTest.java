@@ -0,0 +1,236 @@
+package pl.projekt.sklep.cart;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import pl.projekt.sklep.model.Cart;
+import pl.projekt.sklep.model.CartItem;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<CartJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (CartJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void recover_ReturnsCartsAsAppended() {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 2, "12.50"), line(11L, 1, "0.99")));
+        journal.append(cart(2L));
+
+        Map<Long, Cart> recovered = byId(open().recover());
+
+        assertEquals(2, recovered.size());
+        Cart first = recovered.get(1L);
+        assertEquals(Money.of(new BigDecimal("25.99")), first.getTotalAmount());
+        assertEquals(2, first.getItems().size());
+        assertEquals(2, first.getItems().get(10L).getQuantity());
+        assertEquals(Money.of(new BigDecimal("12.50")), first.getItems().get(10L).getPrice());
+        assertEquals(Money.of(new BigDecimal("25.00")), first.getItems().get(10L).getTotalPrice());
+        assertEquals(Money.of(new BigDecimal("0.99")), first.getItems().get(11L).getPrice());
+        assertTrue(recovered.get(2L).getItems().isEmpty());
+    }
+
+    @Test
+    void recover_LaterRecordsAndDeletesWin() {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 1, "5.00")));
+        journal.append(cart(2L, line(10L, 1, "5.00")));
+        journal.append(cart(1L, line(10L, 3, "5.00")));
+        journal.appendDelete(2L);
+
+        Map<Long, Cart> recovered = byId(open().recover());
+
+        assertEquals(List.of(1L), List.copyOf(recovered.keySet()));
+        assertEquals(3, recovered.get(1L).getItems().get(10L).getQuantity());
+    }
+
+    @Test
+    void recover_StopsAtRecordWithBadChecksum() throws IOException {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 1, "5.00")));
+        journal.append(cart(2L, line(10L, 1, "5.00")));
+        journal.append(cart(3L, line(10L, 1, "5.00")));
+        Path segment = segments().get(0);
+        int second = recordOffset(segment, 1);
+        // flip a byte in the second record's payload
+        corrupt(segment, second + 8 + 3, 1);
+
+        Map<Long, Cart> recovered = byId(open().recover());
+
+        assertEquals(List.of(1L), List.copyOf(recovered.keySet()));
+    }
+
+    @Test
+    void recover_DropsTornRecordAtTheEnd() throws IOException {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 1, "5.00")));
+        journal.append(cart(2L, line(10L, 1, "5.00"), line(11L, 4, "1.25")));
+        Path segment = segments().get(0);
+        int second = recordOffset(segment, 1);
+        int length = readInt(segment, second);
+        // only the first half of the payload reached the file
+        zero(segment, second + 8 + length / 2, length - length / 2);
+
+        Map<Long, Cart> recovered = byId(open().recover());
+
+        assertEquals(List.of(1L), List.copyOf(recovered.keySet()));
+    }
+
+    @Test
+    void snapshot_FoldsClosedSegmentsAndKeepsDeletes() throws IOException {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 1, "5.00")));
+        journal.append(cart(2L, line(10L, 1, "5.00")));
+        journal.appendDelete(1L);
+        journal.append(cart(2L, line(10L, 6, "5.00")));
+
+        journal.snapshot();
+        journal.append(cart(3L, line(11L, 1, "2.00")));
+        journal.appendDelete(2L);
+        journal.append(cart(2L, line(11L, 2, "2.00")));
+
+        assertEquals(1, files("snapshot-").size());
+        assertEquals(1, segments().size());
+        Map<Long, Cart> recovered = byId(open().recover());
+        assertEquals(2, recovered.size());
+        assertFalse(recovered.containsKey(1L));
+        assertEquals(2, recovered.get(2L).getItems().get(11L).getQuantity());
+        assertFalse(recovered.get(2L).getItems().containsKey(10L));
+        assertTrue(recovered.containsKey(3L));
+    }
+
+    @Test
+    void snapshot_DeletedCartDoesNotComeBackAfterSecondSnapshot() throws IOException {
+        CartJournal journal = open();
+        journal.append(cart(1L, line(10L, 1, "5.00")));
+        journal.snapshot();
+        journal.appendDelete(1L);
+        journal.append(cart(2L));
+        journal.snapshot();
+
+        Map<Long, Cart> recovered = byId(open().recover());
+
+        assertEquals(List.of(2L), List.copyOf(recovered.keySet()));
+        assertEquals(1, files("snapshot-").size());
+    }
+
+    // the first journal is the one under test, later ones only recover what it wrote
+    private CartJournal open() {
+        CartJournal journal = new CartJournal("memory", true, directory, DataSize.ofKilobytes(64), false,
+                Duration.ofHours(1));
+        opened.add(journal);
+        if (opened.size() == 1) {
+            journal.recover();
+        }
+        return journal;
+    }
+
+    private static Cart cart(Long cartId, CartItem... lines) {
+        Cart cart = new Cart();
+        cart.setCartId(cartId);
+        Money total = Money.ZERO;
+        for (CartItem line : lines) {
+            line.setCart(cart);
+            cart.getItems().put(line.getItemId(), line);
+            total = total.plus(line.getTotalPrice());
+        }
+        cart.setTotalAmount(total);
+        return cart;
+    }
+
+    private static CartItem line(Long itemId, int quantity, String price) {
+        Item item = new Item();
+        item.setItemId(itemId);
+        CartItem line = new CartItem();
+        line.setItem(item);
+        line.setQuantity(quantity);
+        line.setPrice(Money.of(new BigDecimal(price)));
+        line.setTotalPrice();
+        return line;
+    }
+
+    private static Map<Long, Cart> byId(Collection<Cart> carts) {
+        return carts.stream().collect(Collectors.toMap(Cart::getCartId, Function.identity(),
+                (a, b) -> b, TreeMap::new));
+    }
+
+    private List<Path> segments() throws IOException {
+        return files("segment-");
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int recordOffset(Path segment, int index) throws IOException {
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += 8 + readInt(segment, offset);
+        }
+        return offset;
+    }
+
+    private static int readInt(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(buffer, position);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private static void corrupt(Path file, int position, int length) throws IOException {
+        rewrite(file, position, length, value -> (byte) ~value);
+    }
+
+    private static void zero(Path file, int position, int length) throws IOException {
+        rewrite(file, position, length, value -> (byte) 0);
+    }
+
+    private static void rewrite(Path file, int position, int length, Function<Byte, Byte> change) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            channel.read(buffer, position);
+            buffer.flip();
+            for (int i = 0; i < length; i++) {
+                buffer.put(i, change.apply(buffer.get(i)));
+            }
+            channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package pl.projekt.sklep.cart;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartPartitionsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CartPartitions partitions;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        partitions.shutdown();
+    }
+
+    @Test
+    void route_SameCart_RunsOneAtATime() throws Exception {
+        partitions = partitioned(4, 100);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Object>> calls = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> routeUnchecked(1L, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return Thread.currentThread().getName();
+            })));
+        }
+
+        for (CompletableFuture<Object> call : calls) {
+            assertEquals("cart-partition-1", call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void route_DifferentCarts_RunInParallel() throws Exception {
+        partitions = partitioned(2, 100);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> routeUnchecked(0L, () -> awaitOther(bothRunning)));
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> routeUnchecked(1L, () -> awaitOther(bothRunning)));
+
+        assertEquals(true, first.get(5, TimeUnit.SECONDS));
+        assertEquals(true, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void route_FullQueue_AnswersTooManyRequests() throws Exception {
+        partitions = partitioned(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> busy = CompletableFuture.supplyAsync(() -> routeUnchecked(1L, () -> {
+            started.countDown();
+            release.await();
+            return "busy";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> routeUnchecked(1L, () -> "queued"));
+        awaitQueued(1);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> route(1L, () -> "refused"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("shop.cart.partition.rejected").counter().count());
+        release.countDown();
+        assertEquals("busy", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void route_CallFromPartitionThread_RunsInPlace() throws Throwable {
+        partitions = partitioned(1, 1);
+
+        // would wait on its own partition forever if the nested call were queued behind it
+        Object result = route(1L, () -> route(1L, () -> Thread.currentThread().getName()));
+
+        assertEquals("cart-partition-0", result);
+    }
+
+    @Test
+    void route_InsideTransaction_RunsInPlace() throws Throwable {
+        partitions = partitioned(1, 1);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertSame(Thread.currentThread(), route(1L, Thread::currentThread));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void route_DirectExecution_RunsInPlace() throws Throwable {
+        partitions = new CartPartitions(meterRegistry, "direct", 4, 100);
+
+        assertFalse(partitions.isEnabled());
+        assertSame(Thread.currentThread(), route(1L, Thread::currentThread));
+    }
+
+    @Test
+    void route_FailingOperation_RethrowsItsException() {
+        partitions = partitioned(1, 1);
+        ResponseStatusException notFound = new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found");
+
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class, () -> route(1L, () -> {
+            throw notFound;
+        }));
+
+        assertSame(notFound, thrown);
+    }
+
+    private CartPartitions partitioned(int count, int queueCapacity) {
+        return new CartPartitions(meterRegistry, "partitioned", count, queueCapacity);
+    }
+
+    private Object route(Long cartId, Operation operation) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{cartId});
+        when(joinPoint.proceed()).thenAnswer(invocation -> operation.run());
+        return partitions.route(joinPoint);
+    }
+
+    private Object routeUnchecked(Long cartId, Operation operation) {
+        try {
+            return route(cartId, operation);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitQueued(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("shop.cart.partition.queue").gauge().value() < size) {
+            assertTrue(System.nanoTime() < deadline, "operation was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean awaitOther(CountDownLatch bothRunning) throws InterruptedException {
+        bothRunning.countDown();
+        return bothRunning.await(5, TimeUnit.SECONDS);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run() throws Throwable;
+    }
+}
@@ -0,0 +1,254 @@
+package pl.projekt.sklep.cart;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.model.Cart;
+import pl.projekt.sklep.model.CartItem;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.Money;
+import pl.projekt.sklep.repository.CartRepository;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the store opens its own transactions, so the test does not run inside one
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartStoreTest {
+
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDirectory;
+
+    private TransactionTemplate transactionTemplate;
+    private CartStore store;
+    private Item lamp;
+    private Long cartId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        CartJournal journal = new CartJournal("memory", false, Path.of("unused"), DataSize.ofMegabytes(1), false,
+                Duration.ofMinutes(5));
+        // the background flusher never fires during a test, writes happen through flush() and shutdown()
+        store = store(journal);
+        lamp = itemRepository.save(new Item(null, "Lamp", new BigDecimal("12.50"), 10, "Desk lamp", null));
+        Cart cart = cartRepository.save(new Cart());
+        cartId = cart.getCartId();
+        store.register(cart);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.shutdown();
+    }
+
+    @Test
+    void update_StaysInMemoryUntilWrittenBehind() throws InterruptedException {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 2)));
+
+        assertEquals(0, storedLines());
+        assertEquals(2, store.<Integer>read(cartId, cart -> cart.getLine(lamp.getItemId()).getQuantity()));
+
+        store.shutdown();
+
+        assertEquals(1, storedLines());
+        Cart stored = storedCart();
+        assertEquals(Money.of(new BigDecimal("25.00")), stored.getTotalAmount());
+        assertEquals(2, stored.getLine(lamp.getItemId()).getQuantity());
+    }
+
+    @Test
+    void flush_HandsGeneratedLineIdAndVersionBackToLiveCart() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+        assertNull(store.read(cartId, cart -> cart.getLine(lamp.getItemId()).getId()));
+
+        store.flush(cartId);
+
+        Cart stored = storedCart();
+        assertEquals(stored.getLine(lamp.getItemId()).getId(), store.read(cartId, cart -> cart.getLine(lamp.getItemId()).getId()));
+        assertEquals(stored.getVersion(), store.read(cartId, Cart::getVersion));
+
+        // the backfilled version lets the next write-back through
+        store.update(cartId, cart -> cart.getLine(lamp.getItemId()).setQuantity(3));
+        store.flush(cartId);
+        assertEquals(3, storedCart().getLine(lamp.getItemId()).getQuantity());
+    }
+
+    @Test
+    void flush_RowChangedBehindStore_DropsLiveCartInsteadOfOverwriting() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+        jdbcTemplate.update("update cart set version = version + 1 where cart_id = ?", cartId);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.flush(cartId));
+
+        assertEquals(0, storedLines());
+        assertTrue(store.<Boolean>read(cartId, cart -> cart.getItems().isEmpty()));
+    }
+
+    @Test
+    void flush_RolledBackTransaction_KeepsCartDirty() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            store.flush(cartId);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, storedLines());
+
+        store.flush(cartId);
+        assertEquals(1, storedLines());
+    }
+
+    @Test
+    void flush_InsideTransaction_ClaimsCartUntilItCompletes() throws Exception {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+        CompletableFuture<Void> concurrent = new CompletableFuture<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            store.flush(cartId);
+            store.update(cartId, cart -> cart.getLine(lamp.getItemId()).setQuantity(4));
+            CompletableFuture.runAsync(() -> store.flush(cartId)).whenComplete((result, error) -> {
+                if (error != null) {
+                    concurrent.completeExceptionally(error);
+                } else {
+                    concurrent.complete(null);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> concurrent.get(200, TimeUnit.MILLISECONDS));
+        });
+
+        concurrent.get(5, TimeUnit.SECONDS);
+        assertEquals(4, storedCart().getLine(lamp.getItemId()).getQuantity());
+    }
+
+    @Test
+    void discard_RolledBackTransaction_KeepsLiveCart() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartRepository.deleteById(cartId);
+            store.discard(cartId);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1, store.<Integer>read(cartId, cart -> cart.getItems().size()));
+    }
+
+    @Test
+    void discard_CommittedTransaction_DropsLiveCart() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartRepository.deleteById(cartId);
+            store.discard(cartId);
+        });
+
+        assertThrows(ResourceNotFoundException.class, () -> store.read(cartId, cart -> cart));
+    }
+
+    @Test
+    void update_FailedChange_LeavesPublishedCartUntouched() {
+        store.update(cartId, cart -> cart.putLine(line(lamp, 1)));
+
+        assertThrows(IllegalStateException.class, () -> store.update(cartId, cart -> {
+            cart.removeLine(lamp.getItemId());
+            throw new IllegalStateException("rejected");
+        }));
+
+        assertEquals(1, store.<Integer>read(cartId, cart -> cart.getItems().size()));
+    }
+
+    @Test
+    void restore_MovesCartIdSequencePastRecoveredCarts() throws InterruptedException {
+        Long recoveredId = cartId + 500;
+        CartJournal writer = journal();
+        writer.recover();
+        Cart recovered = new Cart();
+        recovered.setCartId(recoveredId);
+        recovered.putLine(line(lamp, 2));
+        writer.append(recovered);
+        writer.close();
+
+        CartJournal reader = journal();
+        try {
+            store(reader).afterSingletonsInstantiated();
+        } finally {
+            reader.close();
+        }
+
+        Cart restored = transactionTemplate.execute(status -> {
+            Cart cart = cartRepository.findById(recoveredId).orElseThrow();
+            cart.getItems().size();
+            return cart;
+        });
+        assertEquals(2, restored.getLine(lamp.getItemId()).getQuantity());
+        // ids still handed out from the block the generator already holds are below the recovered cart
+        for (int i = 0; i < 60; i++) {
+            Long newId = cartRepository.save(new Cart()).getCartId();
+            assertNotEquals(recoveredId, newId);
+        }
+        assertTrue(cartRepository.save(new Cart()).getCartId() > recoveredId);
+    }
+
+    private CartStore store(CartJournal journal) {
+        return new CartStore(cartRepository, itemRepository, journal, jdbcTemplate, entityManagerFactory, transactionManager,
+                new SimpleMeterRegistry(), "memory", 1000, Duration.ofMinutes(30), Duration.ofHours(1), 100);
+    }
+
+    private CartJournal journal() {
+        return new CartJournal("memory", true, journalDirectory, DataSize.ofKilobytes(64), false, Duration.ofHours(1));
+    }
+
+    private Cart storedCart() {
+        return transactionTemplate.execute(status -> {
+            Cart cart = cartRepository.findById(cartId).orElseThrow();
+            cart.getItems().size();
+            return cart;
+        });
+    }
+
+    private int storedLines() {
+        return storedCart().getItems().size();
+    }
+
+    private static CartItem line(Item item, int quantity) {
+        CartItem line = new CartItem();
+        line.setItem(item);
+        line.setPrice(Money.of(item.getPrice()));
+        line.setQuantity(quantity);
+        line.setTotalPrice();
+        return line;
+    }
+}
@@ -0,0 +1,42 @@
+package pl.projekt.sklep.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyAspectTest {
+    private final IdempotencyAspect aspect = new IdempotencyAspect(mock(IdempotencyStore.class), new ObjectMapper());
+
+    @Test
+    void fingerprint_EqualArgumentsWithoutToString_Match() {
+        assertEquals(aspect.fingerprint(new Object[]{new Body(1L, "Lamp"), 2}),
+                aspect.fingerprint(new Object[]{new Body(1L, "Lamp"), 2}));
+    }
+
+    @Test
+    void fingerprint_DifferentArguments_Differ() {
+        assertNotEquals(aspect.fingerprint(new Object[]{new Body(1L, "Lamp")}),
+                aspect.fingerprint(new Object[]{new Body(1L, "Desk")}));
+    }
+
+    // no toString, so an identity hash would have told two equal requests apart
+    public static class Body {
+        private final Long cartId;
+        private final String itemName;
+
+        Body(Long cartId, String itemName) {
+            this.cartId = cartId;
+            this.itemName = itemName;
+        }
+
+        public Long getCartId() {
+            return cartId;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package pl.projekt.sklep.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.dto.OrderStatusDto;
+import pl.projekt.sklep.model.IdempotencyRecord;
+import pl.projekt.sklep.repository.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+    private static final String OPERATION = "OrderController.createOrder";
+
+    private final IdempotencyRecordRepository recordRepository = mock(IdempotencyRecordRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(recordRepository.findById(any())).thenReturn(Optional.empty());
+        store = new IdempotencyStore(recordRepository, objectMapper, new SimpleMeterRegistry(), Duration.ofHours(24),
+                1000, Duration.ofMinutes(10), Duration.ofHours(1), Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void execute_SameKeyTwice_ReplaysFirstResponse() throws Throwable {
+        IdempotencyStore.Outcome first = execute("key", "fp", () -> "order " + runs.incrementAndGet());
+        IdempotencyStore.Outcome second = execute("key", "fp", () -> "order " + runs.incrementAndGet());
+
+        assertEquals("order 1", first.response());
+        assertFalse(first.replayed());
+        assertEquals("order 1", second.response());
+        assertTrue(second.replayed());
+        assertEquals(1, runs.get());
+        verify(recordRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void execute_StoredRecord_ReplaysWithoutRunning() throws Throwable {
+        OrderStatusDto stored = new OrderStatusDto();
+        stored.setOrderId(7L);
+        when(recordRepository.findById(OPERATION + ":key")).thenReturn(Optional.of(new IdempotencyRecord(
+                OPERATION + ":key", "fp", objectMapper.writeValueAsString(stored), Instant.now())));
+
+        IdempotencyStore.Outcome outcome = store.execute(OPERATION, "key", "fp", OrderStatusDto.class,
+                response -> true, () -> runs.incrementAndGet());
+
+        assertTrue(outcome.replayed());
+        assertEquals(7L, ((OrderStatusDto) outcome.response()).getOrderId());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_DifferentRequestWithSameKey_AnswersUnprocessableEntity() throws Throwable {
+        execute("key", "fp", () -> "order");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> execute("key", "other", () -> "order"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicate_WaitsForFirstAndRunsOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome> first = CompletableFuture.supplyAsync(() -> executeUnchecked(() -> {
+            started.countDown();
+            release.await();
+            return "order " + runs.incrementAndGet();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<IdempotencyStore.Outcome> duplicate = CompletableFuture.supplyAsync(
+                () -> executeUnchecked(() -> "order " + runs.incrementAndGet()));
+
+        release.countDown();
+
+        assertEquals("order 1", first.get(5, TimeUnit.SECONDS).response());
+        IdempotencyStore.Outcome replay = duplicate.get(5, TimeUnit.SECONDS);
+        assertEquals("order 1", replay.response());
+        assertTrue(replay.replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_DuplicateOutwaitsTimeout_AnswersConflict() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome> first = CompletableFuture.supplyAsync(() -> executeUnchecked(() -> {
+            started.countDown();
+            release.await();
+            return "order";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> execute("key", "fp", () -> "order"));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        release.countDown();
+        assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+    }
+
+    @Test
+    void execute_FailedAction_StaysRetryable() throws Throwable {
+        assertThrows(IllegalStateException.class, () -> execute("key", "fp", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("out of stock");
+        }));
+
+        IdempotencyStore.Outcome retry = execute("key", "fp", () -> "order " + runs.incrementAndGet());
+
+        assertEquals("order 2", retry.response());
+        assertFalse(retry.replayed());
+        verify(recordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void execute_UnstorableResponse_StaysRetryable() throws Throwable {
+        store.execute(OPERATION, "key", "fp", String.class, response -> false, () -> "failed " + runs.incrementAndGet());
+
+        IdempotencyStore.Outcome retry = execute("key", "fp", () -> "order " + runs.incrementAndGet());
+
+        assertEquals("order 2", retry.response());
+        assertFalse(retry.replayed());
+        verify(recordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    private IdempotencyStore.Outcome execute(String key, String fingerprint, IdempotencyStore.Action action) throws Throwable {
+        return store.execute(OPERATION, key, fingerprint, String.class, response -> true, action);
+    }
+
+    private IdempotencyStore.Outcome executeUnchecked(IdempotencyStore.Action action) {
+        try {
+            return execute("key", "fp", action);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package pl.projekt.sklep.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    private static final Money MAX = Money.ofMinor(Long.MAX_VALUE);
+    private static final Money MIN = Money.ofMinor(Long.MIN_VALUE);
+
+    @Test
+    void of_RoundsHalfUpToMinorUnits() {
+        assertEquals(1235, Money.of(new BigDecimal("12.345")).minorUnits());
+        assertEquals(1234, Money.of(new BigDecimal("12.3449")).minorUnits());
+        assertEquals(-1235, Money.of(new BigDecimal("-12.345")).minorUnits());
+        assertEquals(1200, Money.of(new BigDecimal("12")).minorUnits());
+        assertEquals(new BigDecimal("12.35"), Money.of(new BigDecimal("12.345")).toBigDecimal());
+    }
+
+    @Test
+    void of_LargestAmounts_AreExact() {
+        assertEquals(Long.MAX_VALUE, Money.of(new BigDecimal("92233720368547758.07")).minorUnits());
+        assertEquals(Long.MIN_VALUE, Money.of(new BigDecimal("-92233720368547758.08")).minorUnits());
+    }
+
+    @Test
+    void of_OutOfRange_Throws() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("92233720368547758.08")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("-92233720368547758.09")));
+        // rounding up is what takes it out of range
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("92233720368547758.075")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+30")));
+    }
+
+    @Test
+    void plus_Overflow_Throws() {
+        assertThrows(ArithmeticException.class, () -> MAX.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> MIN.plus(Money.ofMinor(-1)));
+        assertEquals(MAX, MAX.plus(Money.ZERO));
+    }
+
+    @Test
+    void minus_Overflow_Throws() {
+        assertThrows(ArithmeticException.class, () -> MIN.minus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> MAX.minus(Money.ofMinor(-1)));
+        assertEquals(Money.ofMinor(Long.MAX_VALUE - 1), MAX.minus(Money.ofMinor(1)));
+    }
+
+    @Test
+    void times_Overflow_Throws() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2 + 1).times(2));
+        assertThrows(ArithmeticException.class, () -> MIN.times(-1));
+        assertEquals(Money.ofMinor(Long.MAX_VALUE - 1), Money.ofMinor(Long.MAX_VALUE / 2).times(2));
+        assertEquals(Money.ZERO, MAX.times(0));
+        assertSame(MAX, MAX.times(1));
+    }
+
+    @Test
+    void negate_Overflow_Throws() {
+        assertThrows(ArithmeticException.class, MIN::negate);
+        assertEquals(Money.ofMinor(-Long.MAX_VALUE), MAX.negate());
+    }
+
+    @Test
+    void arithmetic_IsExact() {
+        Money price = Money.of(new BigDecimal("0.10"));
+
+        assertEquals(Money.of(new BigDecimal("0.30")), price.plus(price).plus(price));
+        assertEquals(new BigDecimal("2.97"), Money.of(new BigDecimal("0.99")).times(3).toBigDecimal());
+        assertEquals(Money.ZERO, price.minus(price));
+        assertSame(Money.ZERO, Money.ofMinor(0));
+    }
+
+    @Test
+    void equalsAndOrder_IgnoreScaleOfSource() {
+        assertEquals(Money.of(new BigDecimal("1.5")), Money.of(new BigDecimal("1.50")));
+        assertEquals(Money.of(new BigDecimal("1.5")).hashCode(), Money.of(new BigDecimal("1.500")).hashCode());
+        assertTrue(Money.ofMinor(-1).compareTo(Money.ZERO) < 0);
+        assertEquals("-0.05", Money.ofMinor(-5).toString());
+    }
+
+    @Test
+    void converter_KeepsNullsAndTwoDecimals() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertEquals(new BigDecimal("12.30"), converter.convertToDatabaseColumn(Money.of(new BigDecimal("12.3"))));
+        assertEquals(Money.ofMinor(1230), converter.convertToEntityAttribute(new BigDecimal("12.30")));
+    }
+}
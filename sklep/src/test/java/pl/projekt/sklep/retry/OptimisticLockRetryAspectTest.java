@@ -0,0 +1,114 @@
+package pl.projekt.sklep.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OptimisticLockRetryAspectTest {
+    private static final String OPERATION = "addLine";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    private final OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("stale cart");
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(Target.class.getDeclaredMethod("addLine"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    void retry_ConflictThenSuccess_ReturnsResultOfLaterAttempt() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(conflict, conflict).thenReturn("cart");
+
+        assertEquals("cart", aspect(4).retry(joinPoint));
+
+        verify(joinPoint, times(3)).proceed();
+        assertEquals(2.0, meterRegistry.get("shop.cart.conflicts").tag("operation", OPERATION).counter().count());
+        assertEquals(3.0, meterRegistry.get("shop.cart.conflict.attempts").summary().max());
+    }
+
+    @Test
+    void retry_ConflictOnEveryAttempt_AnswersConflictAfterLastAttempt() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(conflict);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> aspect(3).retry(joinPoint));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertSame(conflict, e.getCause());
+        verify(joinPoint, times(3)).proceed();
+        assertEquals(1.0, meterRegistry.get("shop.cart.conflicts.exhausted").counter().count());
+    }
+
+    @Test
+    void retry_OtherFailure_IsNotRetried() throws Throwable {
+        IllegalArgumentException invalid = new IllegalArgumentException("Quantity must be positive");
+        when(joinPoint.proceed()).thenThrow(invalid);
+
+        assertSame(invalid, assertThrows(IllegalArgumentException.class, () -> aspect(4).retry(joinPoint)));
+
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    void retry_InsideTransaction_LetsConflictReachCaller() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(conflict);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertSame(conflict, assertThrows(OptimisticLockingFailureException.class, () -> aspect(4).retry(joinPoint)));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(joinPoint, times(1)).proceed();
+        assertTrue(meterRegistry.find("shop.cart.conflicts").counters().isEmpty());
+    }
+
+    @Test
+    void backoffNanos_DoublesUpToMaximum() {
+        OptimisticLockRetryAspect aspect = new OptimisticLockRetryAspect(meterRegistry, 10,
+                Duration.ofMillis(10), Duration.ofMillis(50));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), aspect.backoffNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), aspect.backoffNanos(2));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), aspect.backoffNanos(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), aspect.backoffNanos(4));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), aspect.backoffNanos(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void retry_SleepsNoLongerThanBackoffBounds() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(conflict);
+        OptimisticLockRetryAspect aspect = new OptimisticLockRetryAspect(meterRegistry, 4,
+                Duration.ofMillis(1), Duration.ofMillis(2));
+
+        long started = System.nanoTime();
+        assertThrows(ResponseStatusException.class, () -> aspect.retry(joinPoint));
+
+        // three sleeps of at most 1, 2 and 2 ms, with room for a slow scheduler
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private OptimisticLockRetryAspect aspect(int maxAttempts) {
+        return new OptimisticLockRetryAspect(meterRegistry, maxAttempts, Duration.ZERO, Duration.ZERO);
+    }
+
+    static class Target {
+        @RetryOnConflict(OPERATION)
+        void addLine() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package pl.projekt.sklep.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.mapper.ItemMapper;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ItemSearchIndexTest {
+
+    private ItemRepository itemRepository;
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        index = new ItemSearchIndex(itemRepository, new ItemMapper());
+    }
+
+    @Test
+    void rebuild_WhileLoading_ServesPreviousContents() {
+        index.index(item(1L, "Old lamp", "desk lamp"));
+        when(itemRepository.findPageOrderedById(anyLong(), any())).thenAnswer(invocation -> {
+            assertEquals(List.of(1L), ids(index.search("lamp", 0, 10)));
+            return List.of(entity(1L, "Old lamp", "desk lamp"), entity(2L, "New lamp", "floor lamp"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1L, 2L), ids(index.search("lamp", 0, 10)));
+    }
+
+    @Test
+    void rebuild_WriteCommittedDuringLoad_IsNotOverwrittenByOlderRow() {
+        when(itemRepository.findPageOrderedById(anyLong(), any())).thenAnswer(invocation -> {
+            // commits after the chunk was read, the chunk still holds the old name
+            index.index(item(1L, "Renamed kettle", "steel"));
+            return List.of(entity(1L, "Old teapot", "steel"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), ids(index.search("kettle", 0, 10)));
+        assertEquals(List.of(), ids(index.search("teapot", 0, 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void tokenize_FoldsCaseAndDiacritics_SplitsOnPunctuation() {
+        assertEquals(List.of("zolta", "lodka", "2"), ItemSearchIndex.tokenize("Żółta Łódka-2"));
+        assertEquals(List.of(), ItemSearchIndex.tokenize("  -- "));
+    }
+
+    @Test
+    void search_NameMatch_RanksAboveDescriptionMatch() {
+        index.index(item(1L, "Desk", "with a lamp holder"));
+        index.index(item(2L, "Lamp", "for the desk"));
+
+        assertEquals(List.of(2L, 1L), ids(index.search("lamp", 0, 10)));
+    }
+
+    @Test
+    void search_RarerTerm_WeighsMore() {
+        index.index(item(1L, "Lamp", "red"));
+        index.index(item(2L, "Lamp", "blue"));
+        index.index(item(3L, "Lamp", "blue"));
+
+        ItemSearchIndex.SearchHits hits = index.search("lamp red", 0, 10);
+
+        assertEquals(List.of(1L), ids(hits));
+        assertEquals(List.of(1L, 2L), ids(index.search("lamp", 0, 2)));
+    }
+
+    @Test
+    void search_EveryTermMustMatch_LastOneAsPrefix() {
+        index.index(item(1L, "Red lamp", null));
+        index.index(item(2L, "Red lamination sheet", null));
+        index.index(item(3L, "Blue lamp", null));
+
+        assertEquals(Set.of(1L, 2L), Set.copyOf(ids(index.search("red lam", 0, 10))));
+        // only the last term is a prefix
+        assertEquals(0, index.search("lam red", 0, 10).total());
+        assertEquals(0, index.search("green lam", 0, 10).total());
+    }
+
+    @Test
+    void search_Paging_ReportsTotalAndSkipsOffset() {
+        for (long id = 1; id <= 5; id++) {
+            index.index(item(id, "Lamp " + id, null));
+        }
+
+        ItemSearchIndex.SearchHits hits = index.search("lamp", 2, 2);
+
+        assertEquals(5, hits.total());
+        assertEquals(List.of(3L, 4L), ids(hits));
+    }
+
+    @Test
+    void search_RemovedItem_IsNotReturned() {
+        index.index(item(1L, "Lamp", null));
+        index.index(item(2L, "Lamp", null));
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), ids(index.search("lamp", 0, 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_PrefixWithTooManyExpansions_KeepsMostFrequentAndFlagsTruncation() {
+        for (long id = 1; id <= 70; id++) {
+            index.index(item(id, String.format("pa%02d", id), null));
+        }
+        // alphabetically last, so a cut by name order would drop it
+        for (long id = 71; id <= 73; id++) {
+            index.index(item(id, "pazz", null));
+        }
+
+        ItemSearchIndex.SearchHits hits = index.search("pa", 0, 100);
+
+        assertTrue(hits.truncated());
+        assertTrue(ids(hits).containsAll(List.of(71L, 72L, 73L)));
+        assertEquals(3 + 63, hits.total());
+        assertFalse(index.search("pazz", 0, 100).truncated());
+    }
+
+    private static List<Long> ids(ItemSearchIndex.SearchHits hits) {
+        return hits.items().stream().map(ItemDto::getItemId).toList();
+    }
+
+    private static ItemDto item(Long id, String name, String description) {
+        return new ItemMapper().toDto(entity(id, name, description));
+    }
+
+    private static Item entity(Long id, String name, String description) {
+        return new Item(id, name, BigDecimal.TEN, 5, description, null);
+    }
+}
@@ -0,0 +1,44 @@
+package pl.projekt.sklep.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.projekt.sklep.dto.DataFormat;
+import pl.projekt.sklep.dto.ItemImportResultDto;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ItemImportServiceTest {
+
+    @Autowired
+    private ItemImportServiceInterface itemImportService;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void importItems_RowRejectedByDatabase_ReportsOnlyThatRow() throws IOException {
+        // passes validation but does not fit the name column
+        String tooLong = "x".repeat(300);
+        String body = String.join("\n",
+                "{\"name\":\"ImportBefore\",\"price\":1.50,\"inventory\":3}",
+                "{\"name\":\"" + tooLong + "\",\"price\":2.00,\"inventory\":1}",
+                "{\"name\":\"ImportAfter\",\"price\":4.00,\"inventory\":2}");
+
+        ItemImportResultDto result = itemImportService.importItems(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), DataFormat.NDJSON);
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Rejected by the database"));
+        assertTrue(itemRepository.findAll().stream().anyMatch(item -> "ImportBefore".equals(item.getName())));
+        assertTrue(itemRepository.findAll().stream().anyMatch(item -> "ImportAfter".equals(item.getName())));
+    }
+}
@@ -0,0 +1,125 @@
+package pl.projekt.sklep.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.model.Cart;
+import pl.projekt.sklep.model.CartItem;
+import pl.projekt.sklep.model.Order;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.projection.OrderSummaryProjector;
+import pl.projekt.sklep.repository.OrderRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderQueueServiceTest {
+
+    private OrderServiceInterface orderService;
+    private CartServiceInterface cartService;
+    private OrderRepository orderRepository;
+    private OrderSummaryProjector orderSummaryProjector;
+    private OrderQueueService queue;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderServiceInterface.class);
+        cartService = mock(CartServiceInterface.class);
+        orderRepository = mock(OrderRepository.class);
+        orderSummaryProjector = mock(OrderSummaryProjector.class);
+        Cart cart = mock(Cart.class);
+        when(cart.getItems()).thenReturn(Map.of(1L, mock(CartItem.class)));
+        when(cartService.getCart(anyLong())).thenReturn(cart);
+        AtomicLong ids = new AtomicLong();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(ids.incrementAndGet());
+            return order;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void submit_QueueFull_RejectsWithTooManyRequests() throws InterruptedException {
+        queue = queue(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(orderService).completeQueuedOrder(anyLong());
+
+        queue.submit(1L);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(OrderStatus.QUEUED, queue.submit(2L).getStatus());
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class, () -> queue.submit(3L));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        verify(orderRepository, times(2)).save(any(Order.class));
+        release.countDown();
+        verify(orderService, timeout(5000)).completeQueuedOrder(2L);
+    }
+
+    @Test
+    void process_CheckoutFails_MarksOrderFailedWithBoundedReason() {
+        queue = queue(1, 10);
+        doThrow(new IllegalStateException("x".repeat(1000))).when(orderService).completeQueuedOrder(1L);
+        doThrow(new IllegalStateException()).when(orderService).completeQueuedOrder(2L);
+
+        queue.submit(1L);
+        queue.submit(2L);
+
+        String bounded = "x".repeat(OrderQueueService.MAX_FAILURE_REASON_LENGTH);
+        verify(orderRepository, timeout(5000)).markFailed(1L, bounded);
+        verify(orderSummaryProjector, timeout(5000)).markFailed(1L, bounded);
+        verify(orderRepository, timeout(5000)).markFailed(2L, IllegalStateException.class.getName());
+    }
+
+    @Test
+    void process_MarkFailedThrows_WorkerKeepsRunning() {
+        queue = queue(1, 10);
+        doThrow(new IllegalStateException("checkout failed")).when(orderService).completeQueuedOrder(1L);
+        when(orderRepository.markFailed(eq(1L), anyString())).thenThrow(new IllegalStateException("database down"));
+
+        queue.submit(1L);
+        queue.submit(2L);
+
+        verify(orderService, timeout(5000)).completeQueuedOrder(2L);
+        verify(orderRepository, never()).markFailed(eq(2L), anyString());
+    }
+
+    @Test
+    void resumeQueued_QueuedOrdersAtStartup_AreProcessed() {
+        queue = queue(2, 10);
+        when(orderRepository.findIdsByStatus(OrderStatus.QUEUED)).thenReturn(List.of(7L, 8L));
+
+        queue.resumeQueued();
+
+        verify(orderService, timeout(5000)).completeQueuedOrder(7L);
+        verify(orderService, timeout(5000)).completeQueuedOrder(8L);
+    }
+
+    private OrderQueueService queue(int workers, int capacity) {
+        return new OrderQueueService(orderService, cartService, orderRepository, orderSummaryProjector,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), workers, capacity);
+    }
+}
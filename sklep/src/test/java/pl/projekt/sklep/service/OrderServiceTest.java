@@ -0,0 +1,124 @@
+package pl.projekt.sklep.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.projekt.sklep.exception.ResourceNotFoundException;
+import pl.projekt.sklep.model.Category;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.repository.CategoryRepository;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OrderServiceTest {
+
+    @Autowired
+    private OrderServiceInterface orderService;
+    @Autowired
+    private CartServiceInterface cartService;
+    @Autowired
+    private CartItemServiceInterface cartItemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void createOrder_ShortLine_RollsBackWholeCheckout() {
+        Item lamp = item("CheckoutLamp", 5);
+        Item shade = item("CheckoutShade", 1);
+        Long cartId = cartService.initializeNewCart();
+        cartItemService.addItemToCart(cartId, lamp.getName(), 2);
+        cartItemService.addItemToCart(cartId, shade.getName(), 3);
+        long orders = orderRepository.count();
+
+        HashMap<String, Object> response = orderService.createOrder(cartId);
+
+        assertEquals(409, response.get("statusCode"));
+        assertEquals("Insufficient stock for CheckoutShade", response.get("message"));
+        assertEquals(5, inventory(lamp));
+        assertEquals(1, inventory(shade));
+        assertEquals(orders, orderRepository.count());
+        assertEquals(2, cartService.getCartDto(cartId).getItems().size());
+    }
+
+    @Test
+    void createOrder_EnoughStock_TakesStockAndDeletesCart() {
+        Item lamp = item("CheckoutDesk", 5);
+        Long cartId = cartService.initializeNewCart();
+        cartItemService.addItemToCart(cartId, lamp.getName(), 2);
+
+        HashMap<String, Object> response = orderService.createOrder(cartId);
+
+        assertEquals(200, response.get("statusCode"));
+        assertEquals(3, inventory(lamp));
+        assertThrows(ResourceNotFoundException.class, () -> cartService.getCartDto(cartId));
+    }
+
+    // the oversell scenario from the change: more concurrent checkouts of one item than there is stock
+    @Test
+    void createOrder_ConcurrentCheckouts_NeverOversell() throws Exception {
+        int stock = 10;
+        int checkouts = 25;
+        Item hot = item("CheckoutHot", stock);
+        Item side = item("CheckoutSide", 1000);
+        List<Long> cartIds = new ArrayList<>();
+        for (int i = 0; i < checkouts; i++) {
+            Long cartId = cartService.initializeNewCart();
+            cartItemService.addItemToCart(cartId, hot.getName(), 1);
+            cartItemService.addItemToCart(cartId, side.getName(), 1);
+            cartIds.add(cartId);
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(checkouts);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<Object, Integer> statuses = new HashMap<>();
+        try {
+            List<CompletableFuture<HashMap<String, Object>>> responses = cartIds.stream()
+                    .map(cartId -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return orderService.createOrder(cartId);
+                    }, clients))
+                    .toList();
+            start.countDown();
+            for (CompletableFuture<HashMap<String, Object>> response : responses) {
+                statuses.merge(response.get(30, TimeUnit.SECONDS).get("statusCode"), 1, Integer::sum);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        assertEquals(Map.of(200, stock, 409, checkouts - stock), statuses);
+        assertEquals(0, inventory(hot));
+        assertEquals(1000 - stock, inventory(side));
+    }
+
+    private Item item(String name, int inventory) {
+        Category category = categoryRepository.save(new Category(null, name + "Category", null));
+        return itemRepository.save(new Item(null, name, new BigDecimal("9.99"), inventory, null, category));
+    }
+
+    private int inventory(Item item) {
+        return itemRepository.findById(item.getItemId()).orElseThrow().getInventory();
+    }
+}
@@ -0,0 +1,203 @@
+package pl.projekt.sklep.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.cache.ItemChangePublisher;
+import pl.projekt.sklep.dto.OrderDto;
+import pl.projekt.sklep.dto.OrderTransitionOutcomeDto;
+import pl.projekt.sklep.dto.OrderTransitionOutcomeDto.Result;
+import pl.projekt.sklep.dto.OrderTransitionRequest;
+import pl.projekt.sklep.dto.OrderTransitionResultDto;
+import pl.projekt.sklep.model.Category;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.model.OrderStatus;
+import pl.projekt.sklep.repository.CategoryRepository;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.repository.OrderRepository;
+import pl.projekt.sklep.repository.OrderSummaryRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OrderStatusServiceTest {
+
+    @Autowired
+    private OrderStatusServiceInterface orderStatusService;
+    @Autowired
+    private OrderServiceInterface orderService;
+    @Autowired
+    private CartServiceInterface cartService;
+    @Autowired
+    private CartItemServiceInterface cartItemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemChangePublisher itemChangePublisher;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void transition_ReportsOutcomePerOrder() {
+        Item item = item("StatusLamp", 10);
+        Long pending = placeOrder(item, 1);
+        Long shipped = placeOrder(item, 1);
+        transition(OrderStatus.PROCESSING, shipped);
+        transition(OrderStatus.SHIPPED, shipped);
+
+        OrderTransitionResultDto result = transition(OrderStatus.PROCESSING, pending, shipped, pending + shipped + 1000);
+
+        assertEquals(1, result.getTransitioned());
+        Map<Long, Result> outcomes = outcomes(result);
+        assertEquals(Result.TRANSITIONED, outcomes.get(pending));
+        assertEquals(Result.INVALID_TRANSITION, outcomes.get(shipped));
+        assertEquals(Result.NOT_FOUND, outcomes.get(pending + shipped + 1000));
+        assertEquals("PROCESSING", status(pending));
+        assertEquals("SHIPPED", status(shipped));
+    }
+
+    @Test
+    void transition_FinalStatus_IsNotLeft() {
+        Item item = item("StatusDesk", 10);
+        Long orderId = placeOrder(item, 1);
+        transition(OrderStatus.CANCELLED, orderId);
+
+        OrderTransitionResultDto again = transition(OrderStatus.CANCELLED, orderId);
+        OrderTransitionResultDto revived = transition(OrderStatus.PROCESSING, orderId);
+
+        assertEquals(Result.ALREADY_IN_STATUS, outcomes(again).get(orderId));
+        assertEquals(Result.INVALID_TRANSITION, outcomes(revived).get(orderId));
+        assertEquals(0, again.getRestockedItems());
+        assertEquals("CANCELLED", status(orderId));
+    }
+
+    @Test
+    void transition_Cancel_ReturnsStockSummedPerItem() {
+        Item lamp = item("StatusShade", 10);
+        Item desk = item("StatusChair", 10);
+        Long first = placeOrder(lamp, 2);
+        Long second = placeOrder(lamp, 3);
+        Long third = placeOrder(desk, 4);
+        assertEquals(5, inventory(lamp));
+        assertEquals(6, inventory(desk));
+
+        OrderTransitionResultDto result = transition(OrderStatus.CANCELLED, first, second, third);
+
+        assertEquals(3, result.getTransitioned());
+        assertEquals(2, result.getRestockedItems());
+        assertEquals(10, inventory(lamp));
+        assertEquals(10, inventory(desk));
+    }
+
+    @Test
+    void transition_ShippedToCancelled_KeepsStock() {
+        Item item = item("StatusBench", 10);
+        Long orderId = placeOrder(item, 2);
+        transition(OrderStatus.PROCESSING, orderId);
+        transition(OrderStatus.SHIPPED, orderId);
+
+        OrderTransitionResultDto result = transition(OrderStatus.CANCELLED, orderId);
+
+        assertEquals(Result.INVALID_TRANSITION, outcomes(result).get(orderId));
+        assertEquals(0, result.getRestockedItems());
+        assertEquals(8, inventory(item));
+    }
+
+    @Test
+    void transition_MoreIdsThanLimit_IsRejected() {
+        OrderStatusService limited = limitedTo(2);
+        OrderTransitionRequest request = new OrderTransitionRequest(OrderStatus.PROCESSING, List.of(1L, 2L, 3L), null, null, null);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> inTransaction(limited, request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void transition_FilterMatchingMoreThanLimit_IsRejectedWithoutChanges() {
+        Item item = item("StatusStool", 10);
+        Long first = placeOrder(item, 1);
+        Long second = placeOrder(item, 1);
+        Long third = placeOrder(item, 1);
+        OrderStatusService limited = limitedTo(2);
+        OrderTransitionRequest request = new OrderTransitionRequest(OrderStatus.PROCESSING, null, OrderStatus.PENDING, null, null);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> inTransaction(limited, request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals("PENDING", status(first));
+        assertEquals("PENDING", status(second));
+        assertEquals("PENDING", status(third));
+    }
+
+    @Test
+    void transition_IdsAndFilterTogether_AreRejected() {
+        OrderTransitionRequest request = new OrderTransitionRequest(OrderStatus.PROCESSING, List.of(1L), OrderStatus.PENDING, null, null);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> orderStatusService.transition(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private OrderTransitionResultDto transition(OrderStatus target, Long... orderIds) {
+        return orderStatusService.transition(new OrderTransitionRequest(target, List.of(orderIds), null, null, null));
+    }
+
+    // a second instance with a small limit, run in a transaction like the proxied bean
+    private OrderStatusService limitedTo(int maxOrders) {
+        return new OrderStatusService(orderRepository, orderSummaryRepository, itemRepository, jdbcTemplate,
+                itemChangePublisher, catalogVersion, new SimpleMeterRegistry(), maxOrders);
+    }
+
+    private OrderTransitionResultDto inTransaction(OrderStatusService service, OrderTransitionRequest request) {
+        return new TransactionTemplate(transactionManager).execute(status -> service.transition(request));
+    }
+
+    private Long placeOrder(Item item, int quantity) {
+        Long cartId = cartService.initializeNewCart();
+        cartItemService.addItemToCart(cartId, item.getName(), quantity);
+        Map<String, Object> response = orderService.createOrder(cartId);
+        assertEquals(200, response.get("statusCode"));
+        return ((OrderDto) response.get("data")).getOrderId();
+    }
+
+    private String status(Long orderId) {
+        return ((OrderDto) orderService.getOrder(orderId).get("data")).getStatus();
+    }
+
+    private static Map<Long, Result> outcomes(OrderTransitionResultDto result) {
+        return result.getOutcomes().stream()
+                .collect(Collectors.toMap(OrderTransitionOutcomeDto::getOrderId, OrderTransitionOutcomeDto::getResult));
+    }
+
+    private Item item(String name, int inventory) {
+        Category category = categoryRepository.save(new Category(null, name + "Category", null));
+        return itemRepository.save(new Item(null, name, new BigDecimal("4.99"), inventory, null, category));
+    }
+
+    private int inventory(Item item) {
+        return itemRepository.findById(item.getItemId()).orElseThrow().getInventory();
+    }
+}
@@ -0,0 +1,80 @@
+package pl.projekt.sklep.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.projekt.sklep.cache.CatalogVersion;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.mapper.ItemMapper;
+import pl.projekt.sklep.model.Category;
+import pl.projekt.sklep.model.Item;
+import pl.projekt.sklep.repository.CategoryRepository;
+import pl.projekt.sklep.repository.ItemRepository;
+import pl.projekt.sklep.service.ItemFacetServiceInterface;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the application runs with read-mode=database, a separately loaded snapshot must answer the same
+@SpringBootTest
+class CatalogSnapshotParityTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemMapper itemMapper;
+    @Autowired
+    private ItemFacetServiceInterface itemFacetService;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void snapshot_AnswersLikeDatabase() {
+        Category lighting = categoryRepository.save(new Category(null, "ParityLighting", null));
+        Category furniture = categoryRepository.save(new Category(null, "ParityFurniture", null));
+        itemRepository.saveAll(List.of(
+                new Item(null, "ParityLamp", new BigDecimal("12.50"), 3, "Desk lamp", lighting),
+                new Item(null, "ParityShade", new BigDecimal("100.00"), 0, null, lighting),
+                new Item(null, "ParityDesk", new BigDecimal("199.99"), 2, "Oak", furniture),
+                new Item(null, "ParityChair", new BigDecimal("0.01"), 1, null, furniture),
+                new Item(null, "ParityLoose", new BigDecimal("42.00"), 5, null, null),
+                new Item(null, "ParityUnpriced", null, 1, null, lighting)));
+        CatalogSnapshot snapshot = new CatalogSnapshot(itemRepository, transactionManager, "snapshot");
+        snapshot.load();
+        // the facet service caches by catalog version, the rows above were saved behind its back
+        catalogVersion.bump();
+
+        List<ItemDto> database = itemRepository.findAll().stream()
+                .sorted(Comparator.comparing(Item::getItemId))
+                .map(itemMapper::toDto)
+                .toList();
+        assertEquals(database, snapshot.all());
+        long firstId = database.get(0).getItemId();
+        assertEquals(itemRepository.findPageOrderedById(firstId, PageRequest.of(0, 3)).stream().map(itemMapper::toDto).toList(),
+                snapshot.pageAfter(firstId, 3));
+        assertEquals(itemRepository.findByCategoryName("ParityLighting").stream()
+                        .sorted(Comparator.comparing(Item::getItemId)).map(itemMapper::toDto).toList(),
+                snapshot.byCategory("ParityLighting"));
+
+        assertFacetsMatch(snapshot, null, null, null, new BigDecimal("100"));
+        assertFacetsMatch(snapshot, "ParityLighting", null, null, new BigDecimal("100"));
+        assertFacetsMatch(snapshot, "ParityFurniture", new BigDecimal("0.01"), new BigDecimal("199.98"), new BigDecimal("25"));
+        assertFacetsMatch(snapshot, null, new BigDecimal("12.499"), new BigDecimal("100"), new BigDecimal("0.5"));
+        assertFacetsMatch(snapshot, "NoSuchCategory", null, null, new BigDecimal("100"));
+    }
+
+    private void assertFacetsMatch(CatalogSnapshot snapshot, String category, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal width) {
+        assertEquals(itemFacetService.getFacets(category, minPrice, maxPrice, width),
+                snapshot.facets(category, minPrice, maxPrice, width, 1000),
+                () -> "facets for " + category + " " + minPrice + ".." + maxPrice + " by " + width);
+    }
+}
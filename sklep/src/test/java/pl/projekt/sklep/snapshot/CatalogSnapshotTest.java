@@ -0,0 +1,200 @@
+package pl.projekt.sklep.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.projekt.sklep.dto.CategoryDto;
+import pl.projekt.sklep.dto.ItemDto;
+import pl.projekt.sklep.dto.ItemExportRow;
+import pl.projekt.sklep.dto.ItemFacetsDto;
+import pl.projekt.sklep.repository.ItemRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final CatalogSnapshot snapshot = new CatalogSnapshot(itemRepository, mock(PlatformTransactionManager.class), "snapshot");
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void load_ServesRowsInIdOrder() {
+        load(row(1L, "Lamp", "12.50", 3, 10L, "Lighting"), row(2L, "Desk", "99.00", 0, 20L, "Furniture"),
+                row(3L, "Shade", null, 1, null, null));
+
+        assertTrue(snapshot.isActive());
+        assertEquals(3, snapshot.size());
+        assertEquals(List.of(1L, 2L, 3L), ids(snapshot.all()));
+        ItemDto lamp = snapshot.all().get(0);
+        assertEquals("Lamp", lamp.getName());
+        assertEquals(new BigDecimal("12.50"), lamp.getPrice());
+        assertEquals(3, lamp.getInventory());
+        assertEquals("Lighting", lamp.getCategory().getName());
+        assertNull(snapshot.all().get(2).getPrice());
+        assertNull(snapshot.all().get(2).getCategory());
+    }
+
+    @Test
+    void load_ReplaysWritesCommittedWhileStreaming() {
+        when(itemRepository.streamForExport()).thenAnswer(invocation -> {
+            // committed after the rows below were read
+            snapshot.upsert(dto(2L, "Desk v2", "89.00", 5, 20L, "Furniture"));
+            snapshot.remove(1L);
+            snapshot.upsert(dto(4L, "Chair", "45.00", 2, 20L, "Furniture"));
+            return Stream.of(row(1L, "Lamp", "12.50", 3, 10L, "Lighting"), row(2L, "Desk", "99.00", 0, 20L, "Furniture"),
+                    row(3L, "Shade", "5.00", 1, 10L, "Lighting"));
+        });
+
+        assertFalse(snapshot.isActive());
+        snapshot.load();
+
+        assertEquals(List.of(2L, 3L, 4L), ids(snapshot.all()));
+        assertEquals("Desk v2", snapshot.all().get(0).getName());
+        assertEquals(5, snapshot.all().get(0).getInventory());
+    }
+
+    @Test
+    void upsert_InsertsInIdOrderAndReplacesExisting() {
+        load();
+
+        snapshot.upsert(dto(5L, "Lamp", "12.50", 3, null, null));
+        snapshot.upsert(dto(2L, "Desk", "99.00", 1, null, null));
+        snapshot.upsert(dto(5L, "Lamp v2", "10.00", 7, null, null));
+
+        assertEquals(List.of(2L, 5L), ids(snapshot.all()));
+        assertEquals(2, snapshot.size());
+        ItemDto lamp = snapshot.pageAfter(2L, 10).get(0);
+        assertEquals("Lamp v2", lamp.getName());
+        assertEquals(new BigDecimal("10.00"), lamp.getPrice());
+        assertEquals(7, lamp.getInventory());
+    }
+
+    @Test
+    void upsert_LeavesEarlierReadsUnchanged() {
+        load(LongStream.rangeClosed(1, 3000).mapToObj(id -> row(id, "Item" + id, "1.00", 1, null, null)).toArray(ItemExportRow[]::new));
+        List<ItemDto> before = snapshot.all();
+
+        snapshot.upsert(dto(1500L, "Renamed", "2.00", 0, null, null));
+
+        assertEquals("Item1500", before.get(1499).getName());
+        assertEquals("Renamed", snapshot.all().get(1499).getName());
+        assertEquals("Item2500", snapshot.all().get(2499).getName());
+        assertEquals(3000, snapshot.size());
+    }
+
+    @Test
+    void upsert_RoundsPriceLikeTheColumn() {
+        load();
+
+        snapshot.upsert(dto(1L, "Lamp", "12.345", 1, null, null));
+
+        assertEquals(new BigDecimal("12.35"), snapshot.all().get(0).getPrice());
+    }
+
+    @Test
+    void remove_HidesItemFromEveryRead() {
+        load(row(1L, "Lamp", "12.50", 3, 10L, "Lighting"), row(2L, "Shade", "5.00", 1, 10L, "Lighting"));
+
+        snapshot.remove(1L);
+
+        assertEquals(1, snapshot.size());
+        assertEquals(List.of(2L), ids(snapshot.all()));
+        assertEquals(List.of(2L), ids(snapshot.byCategory("Lighting")));
+        assertEquals(List.of(2L), ids(snapshot.pageAfter(0L, 10)));
+        ItemFacetsDto facets = snapshot.facets(null, null, null, BigDecimal.ONE, 1000);
+        assertEquals(1, facets.getTotal());
+
+        snapshot.upsert(dto(1L, "Lamp", "12.50", 3, 10L, "Lighting"));
+        assertEquals(List.of(1L, 2L), ids(snapshot.all()));
+        assertEquals(2, snapshot.size());
+    }
+
+    @Test
+    void remove_MostOfCatalog_KeepsReadsAndWritesConsistent() {
+        load(LongStream.rangeClosed(1, 3000).mapToObj(id -> row(id, "Item" + id, "1.00", 1, null, null)).toArray(ItemExportRow[]::new));
+
+        LongStream.rangeClosed(1, 2500).forEach(snapshot::remove);
+
+        assertEquals(500, snapshot.size());
+        assertEquals(LongStream.rangeClosed(2501, 3000).boxed().toList(), ids(snapshot.all()));
+        assertEquals(List.of(2501L, 2502L), ids(snapshot.pageAfter(0L, 2)));
+        snapshot.upsert(dto(10L, "Back", "1.00", 1, null, null));
+        assertEquals(List.of(10L, 2501L), ids(snapshot.pageAfter(0L, 2)));
+    }
+
+    @Test
+    void byCategory_FollowsRenamedCategory() {
+        load(row(1L, "Lamp", "12.50", 3, 10L, "Lighting"), row(2L, "Desk", "99.00", 0, 20L, "Furniture"));
+
+        snapshot.upsert(dto(1L, "Lamp", "12.50", 3, 10L, "Lamps"));
+
+        assertEquals(List.of(1L), ids(snapshot.byCategory("Lamps")));
+        assertTrue(snapshot.byCategory("Lighting").isEmpty());
+        assertEquals(List.of(2L), ids(snapshot.byCategory("Furniture")));
+    }
+
+    @Test
+    void upsert_InsideTransaction_AppliesOnlyOnCommit() {
+        load(row(1L, "Lamp", "12.50", 3, null, null));
+        TransactionSynchronizationManager.initSynchronization();
+
+        snapshot.upsert(dto(1L, "Lamp v2", "12.50", 3, null, null));
+        assertEquals("Lamp", snapshot.all().get(0).getName());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals("Lamp v2", snapshot.all().get(0).getName());
+    }
+
+    @Test
+    void load_ReadModeDatabase_StaysInactive() {
+        CatalogSnapshot disabled = new CatalogSnapshot(itemRepository, mock(PlatformTransactionManager.class), "database");
+
+        disabled.load();
+        disabled.upsert(dto(1L, "Lamp", "12.50", 3, null, null));
+
+        assertFalse(disabled.isActive());
+        assertEquals(0, disabled.size());
+        verify(itemRepository, never()).streamForExport();
+    }
+
+    private void load(ItemExportRow... rows) {
+        when(itemRepository.streamForExport()).thenReturn(Stream.of(rows));
+        snapshot.load();
+    }
+
+    private static ItemExportRow row(Long id, String name, String price, int inventory, Long categoryId, String categoryName) {
+        return new ItemExportRow(id, name, price == null ? null : new BigDecimal(price), inventory, null, categoryId, categoryName);
+    }
+
+    private static ItemDto dto(Long id, String name, String price, int inventory, Long categoryId, String categoryName) {
+        ItemDto item = new ItemDto();
+        item.setItemId(id);
+        item.setName(name);
+        item.setPrice(new BigDecimal(price));
+        item.setInventory(inventory);
+        if (categoryId != null) {
+            CategoryDto category = new CategoryDto();
+            category.setId(categoryId);
+            category.setName(categoryName);
+            item.setCategory(category);
+        }
+        return item;
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getItemId).toList();
+    }
+}